@@ -23,6 +23,26 @@ class Edge {
 public class BellmanFord {
 
 	public static double[] findShortestPath(Edge[] edgeList, int V, int src) {
+		return findShortestPath(toCSRGraph(edgeList, V), src);
+	}
+
+	// Lays the Edge objects out as parallel from/to/cost arrays grouped by source
+	static CSRGraph toCSRGraph(Edge[] edgeList, int V) {
+		int E = edgeList.length;
+		int[] from = new int[E], to = new int[E];
+		double[] cost = new double[E];
+		for (int i = 0; i < E; i++) {
+			from[i] = edgeList[i].from;
+			to[i] = edgeList[i].to;
+			cost[i] = edgeList[i].cost;
+		}
+		return CSRGraph.fromEdgeArrays(V, from, to, cost);
+	}
+
+	public static double[] findShortestPath(CSRGraph graph, int src) {
+
+		int V = graph.numVertices();
+		int[] offsets = graph.offsets, targets = graph.targets;
 
 		/*
 		 * Distance array for the vertices V and fill it with value Positive Infinity
@@ -46,10 +66,13 @@ public class BellmanFord {
 
 		for (int v = 0; v < V - 1 && relaxEdge; v++) {
 			relaxEdge = false;
-			for (Edge edge : edgeList) {
-				if (dist[edge.to] > (dist[edge.from] + edge.cost)) {
-					dist[edge.to] = dist[edge.from] + edge.cost;
-					relaxEdge = true;
+			for (int from = 0; from < V; from++) {
+				for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+					int to = targets[e];
+					if (dist[to] > (dist[from] + graph.weight(e))) {
+						dist[to] = dist[from] + graph.weight(e);
+						relaxEdge = true;
+					}
 				}
 			}
 		}
@@ -57,22 +80,145 @@ public class BellmanFord {
 		/*
 		 * Run algorithm a second time to detect which nodes are part of a negative
 		 * cycle. A negative cycle has occurred if we can find a better path beyond the
-		 * optimal solution.
+		 * optimal solution. Passes continue until nothing changes: a vertex can only
+		 * turn into -Infinity once, so this ends after at most V passes, and every
+		 * vertex reachable from a negative cycle gets marked.
 		 */
 
 		relaxEdge = true;
-		for (int v = 0; v < V - 1 && relaxEdge; v++) {
+		while (relaxEdge) {
 			relaxEdge = false;
-			for (Edge edge : edgeList) {
-				if (dist[edge.to] > (dist[edge.from] + edge.cost)) {
-					dist[edge.to] = Double.NEGATIVE_INFINITY;
-					relaxEdge = true;
+			for (int from = 0; from < V; from++) {
+				for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+					int to = targets[e];
+					if (dist[to] > (dist[from] + graph.weight(e))) {
+						dist[to] = Double.NEGATIVE_INFINITY;
+						relaxEdge = true;
+					}
+				}
+			}
+		}
+		return dist;
+	}
+
+	public static double[] findShortestPathSPFA(Edge[] edgeList, int V, int src) {
+		return findShortestPathSPFA(toCSRGraph(edgeList, V), src);
+	}
+
+	/**
+	 * Queue based Bellman-Ford (SPFA). Only the out-edges of vertices whose
+	 * distance improved get relaxed again, and the small-label-first rule puts a
+	 * vertex at the front of the queue when its distance beats the current front.
+	 *
+	 * Gives the same result as findShortestPath, including -Infinity for every
+	 * vertex reachable from a negative cycle.
+	 *
+	 * Time Complexity : O(VE) worst case, usually close to O(E)
+	 */
+	public static double[] findShortestPathSPFA(CSRGraph graph, int src) {
+		int V = graph.numVertices();
+		int[] offsets = graph.offsets, targets = graph.targets;
+
+		double[] dist = new double[V];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		dist[src] = 0;
+
+		// Number of edges on the path that gave dist[v]. A path of V or more edges
+		// repeats a vertex, and since every relaxation strictly lowered a distance
+		// the repeated cycle must be negative.
+		int[] edgeCount = new int[V];
+		boolean[] inQueue = new boolean[V], onNegativeCycle = new boolean[V];
+		boolean negativeCycle = false;
+
+		// Every vertex is queued at most once at a time, so V slots suffice
+		IntDeque queue = new IntDeque(V);
+		queue.addLast(src);
+		inQueue[src] = true;
+
+		while (!queue.isEmpty()) {
+			int from = queue.pollFirst();
+			inQueue[from] = false;
+			if (onNegativeCycle[from])
+				continue;
+			for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+				int to = targets[e];
+				double nd = dist[from] + graph.weight(e);
+				if (onNegativeCycle[to] || dist[to] <= nd)
+					continue;
+				dist[to] = nd;
+				edgeCount[to] = edgeCount[from] + 1;
+				if (edgeCount[to] >= V) {
+					// Stop relaxing through it, the -Infinity pass below takes over
+					onNegativeCycle[to] = negativeCycle = true;
+					continue;
+				}
+				if (!inQueue[to]) {
+					inQueue[to] = true;
+					if (!queue.isEmpty() && nd < dist[queue.peekFirst()])
+						queue.addFirst(to);
+					else
+						queue.addLast(to);
+				}
+			}
+		}
+
+		// Everything reachable from a negative cycle has no shortest path
+		if (negativeCycle) {
+			for (int v = 0; v < V; v++)
+				if (onNegativeCycle[v])
+					queue.addLast(v);
+			while (!queue.isEmpty()) {
+				int from = queue.pollFirst();
+				dist[from] = Double.NEGATIVE_INFINITY;
+				for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+					int to = targets[e];
+					if (!onNegativeCycle[to]) {
+						onNegativeCycle[to] = true;
+						queue.addLast(to);
+					}
 				}
 			}
 		}
 		return dist;
 	}
 
+	// Fixed capacity ring buffer of ints
+	private static final class IntDeque {
+		private final int[] ring;
+		private int head, size;
+
+		IntDeque(int capacity) {
+			ring = new int[Math.max(capacity, 1)];
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		int peekFirst() {
+			return ring[head];
+		}
+
+		int pollFirst() {
+			int v = ring[head];
+			head = head + 1 == ring.length ? 0 : head + 1;
+			size--;
+			return v;
+		}
+
+		void addFirst(int v) {
+			head = head == 0 ? ring.length - 1 : head - 1;
+			ring[head] = v;
+			size++;
+		}
+
+		void addLast(int v) {
+			int tail = head + size;
+			ring[tail >= ring.length ? tail - ring.length : tail] = v;
+			size++;
+		}
+	}
+
 	public static void main(String[] args) {
 
 		int E = 10, V = 9, start = 0;
@@ -93,6 +239,9 @@ public class BellmanFord {
 		for (int i = 0; i < V; i++)
 			System.out.printf("The cost to get from node %d to %d is %.2f\n", start, i, dist[i]);
 
+		// Prints: true
+		System.out.println(Arrays.equals(dist, BellmanFord.findShortestPathSPFA(edges, V, start)));
+
 		// Output:
 		// The cost to get from node 0 to 0 is 0.00
 		// The cost to get from node 0 to 1 is 1.00
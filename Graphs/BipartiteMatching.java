@@ -0,0 +1,246 @@
+/**
+ * Maximum matching in a bipartite graph with the Hopcroft-Karp algorithm,
+ * plus a minimum vertex cover from Konig's theorem.
+ *
+ * Unit-capacity assignment problems (jobs to workers) are max-flow problems
+ * where every augmenting path alternates between unmatched and matched
+ * edges, so there is no need for a capacity matrix. Each phase finds the
+ * shortest augmenting path length with a BFS from all free left vertices,
+ * then augments along a maximal set of vertex-disjoint shortest paths with an
+ * iterative DFS. There are only O(sqrt(V)) phases.
+ *
+ * The left side has vertices 0..L-1, the right side 0..R-1. The caller's
+ * adjacency is copied, never modified.
+ *
+ * Time Complexity : O(E sqrt(V))
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+
+public class BipartiteMatching {
+
+	private static final int INF = Integer.MAX_VALUE;
+
+	private final int L, R;
+	private final int[] offsets, targets; // right neighbours of every left vertex
+	private final int[] matchLeft, matchRight;
+	private int size;
+
+	/**
+	 * @param adjacency  adjacency[u] lists the right vertices left vertex u may
+	 *                   be matched to
+	 * @param rightCount number of right vertices
+	 */
+	public BipartiteMatching(int[][] adjacency, int rightCount) {
+		this(toCSR(adjacency, rightCount), rightCount);
+	}
+
+	/**
+	 * @param leftToRight graph whose vertices are the left side, with an edge
+	 *                    u -> r for every right vertex r that u may take
+	 */
+	public BipartiteMatching(CSRGraph leftToRight, int rightCount) {
+		if (leftToRight == null || rightCount < 0)
+			throw new IllegalArgumentException("Invalid bipartite graph");
+		L = leftToRight.numVertices();
+		R = rightCount;
+		offsets = leftToRight.offsets;
+		targets = leftToRight.targets;
+		for (int e = 0; e < offsets[L]; e++)
+			if (targets[e] < 0 || targets[e] >= R)
+				throw new IllegalArgumentException("Right vertex " + targets[e] + " is out of range");
+		matchLeft = new int[L];
+		matchRight = new int[R];
+		solve();
+	}
+
+	private static CSRGraph toCSR(int[][] adjacency, int rightCount) {
+		if (adjacency == null)
+			throw new IllegalArgumentException("Adjacency cannot be null");
+		int[] offsets = new int[adjacency.length + 1];
+		for (int u = 0; u < adjacency.length; u++)
+			offsets[u + 1] = offsets[u] + adjacency[u].length;
+		int[] targets = new int[offsets[adjacency.length]];
+		for (int u = 0; u < adjacency.length; u++)
+			System.arraycopy(adjacency[u], 0, targets, offsets[u], adjacency[u].length);
+		return new CSRGraph(adjacency.length, offsets, targets, null);
+	}
+
+	private void solve() {
+		Arrays.fill(matchLeft, -1);
+		Arrays.fill(matchRight, -1);
+
+		// A greedy pass matches most vertices before the first phase
+		for (int u = 0; u < L; u++) {
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				if (matchRight[targets[e]] < 0) {
+					matchLeft[u] = targets[e];
+					matchRight[targets[e]] = u;
+					size++;
+					break;
+				}
+			}
+		}
+
+		int[] dist = new int[L], queue = new int[L], cur = new int[L], stack = new int[L];
+		int limit;
+		while ((limit = bfs(dist, queue)) != INF) {
+			for (int u = 0; u < L; u++)
+				cur[u] = offsets[u];
+			for (int u = 0; u < L; u++)
+				if (matchLeft[u] < 0 && augment(u, limit, dist, cur, stack))
+					size++;
+		}
+	}
+
+	/**
+	 * Layers the left vertices by alternating path length from the free left
+	 * vertices. Returns the layer of the shortest augmenting paths, INF if
+	 * there is none.
+	 */
+	private int bfs(int[] dist, int[] queue) {
+		int head = 0, tail = 0;
+		for (int u = 0; u < L; u++) {
+			if (matchLeft[u] < 0) {
+				dist[u] = 0;
+				queue[tail++] = u;
+			} else {
+				dist[u] = INF;
+			}
+		}
+		int limit = INF;
+		while (head < tail) {
+			int u = queue[head++];
+			if (dist[u] >= limit)
+				break;
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int w = matchRight[targets[e]];
+				if (w < 0) {
+					limit = dist[u];
+				} else if (dist[w] == INF) {
+					dist[w] = dist[u] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return limit;
+	}
+
+	/**
+	 * Iterative DFS along the layers from the free left vertex root. stack
+	 * holds the left vertices of the path, cur[v] the edge v is trying, so
+	 * each edge is given up at most once per phase.
+	 */
+	private boolean augment(int root, int limit, int[] dist, int[] cur, int[] stack) {
+		int depth = 0;
+		stack[depth++] = root;
+		while (depth > 0) {
+			int v = stack[depth - 1];
+			if (cur[v] == offsets[v + 1]) {
+				// Dead end: no shortest path continues through v this phase
+				dist[v] = INF;
+				if (--depth > 0)
+					cur[stack[depth - 1]]++;
+				continue;
+			}
+			int r = targets[cur[v]], w = matchRight[r];
+			if (w < 0 && dist[v] == limit) {
+				// Flip the matched and unmatched edges along the path
+				for (int i = depth - 1; i >= 0; i--) {
+					int x = stack[i], y = targets[cur[x]];
+					matchLeft[x] = y;
+					matchRight[y] = x;
+				}
+				return true;
+			}
+			if (w >= 0 && dist[w] == dist[v] + 1 && dist[v] < limit)
+				stack[depth++] = w;
+			else
+				cur[v]++;
+		}
+		return false;
+	}
+
+	// Number of matched pairs
+	public int size() {
+		return size;
+	}
+
+	// Right vertex matched to left vertex u, -1 if unmatched
+	public int matchOfLeft(int u) {
+		return matchLeft[u];
+	}
+
+	// Left vertex matched to right vertex r, -1 if unmatched
+	public int matchOfRight(int r) {
+		return matchRight[r];
+	}
+
+	public int[] leftMatches() {
+		return matchLeft.clone();
+	}
+
+	public int[] rightMatches() {
+		return matchRight.clone();
+	}
+
+	/**
+	 * Minimum vertex cover (Konig): with Z the vertices reachable from free
+	 * left vertices by alternating paths, the cover is the left vertices
+	 * outside Z and the right vertices inside Z. Its size equals size().
+	 *
+	 * @return {left cover vertices, right cover vertices}, each sorted
+	 */
+	public int[][] minimumVertexCover() {
+		boolean[] leftSeen = new boolean[L], rightSeen = new boolean[R];
+		int[] queue = new int[L];
+		int head = 0, tail = 0;
+		for (int u = 0; u < L; u++) {
+			if (matchLeft[u] < 0) {
+				leftSeen[u] = true;
+				queue[tail++] = u;
+			}
+		}
+		while (head < tail) {
+			int u = queue[head++];
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int r = targets[e];
+				if (rightSeen[r])
+					continue;
+				rightSeen[r] = true;
+				int w = matchRight[r]; // matched, or u would have an augmenting path
+				if (!leftSeen[w]) {
+					leftSeen[w] = true;
+					queue[tail++] = w;
+				}
+			}
+		}
+		int[] left = new int[size], right = new int[size];
+		int leftSize = 0, rightSize = 0;
+		for (int u = 0; u < L; u++)
+			if (!leftSeen[u])
+				left[leftSize++] = u;
+		for (int r = 0; r < R; r++)
+			if (rightSeen[r])
+				right[rightSize++] = r;
+		return new int[][] { Arrays.copyOf(left, leftSize), Arrays.copyOf(right, rightSize) };
+	}
+
+	public static void main(String[] args) {
+		// Jobs 0..3 on the left, workers 0..3 on the right
+		int[][] canDo = { { 0, 1 }, { 0 }, { 0, 2, 3 }, { 0 } };
+
+		BipartiteMatching matching = new BipartiteMatching(canDo, 4);
+		System.out.println("Jobs assigned: " + matching.size());
+		System.out.println("Worker of each job: " + Arrays.toString(matching.leftMatches()));
+		int[][] cover = matching.minimumVertexCover();
+		System.out.println("Cover jobs " + Arrays.toString(cover[0]) + ", workers " + Arrays.toString(cover[1]));
+
+		// Output:
+		// Jobs assigned: 3
+		// Worker of each job: [1, 0, 2, -1]
+		// Cover jobs [0, 2], workers [0]
+	}
+}
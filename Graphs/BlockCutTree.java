@@ -0,0 +1,194 @@
+/**
+ * Block-cut tree of an undirected graph with an LCA index, answering
+ * vertex-connectivity questions without a graph search per query.
+ *
+ * The tree has one node per biconnected component (block) and one per
+ * articulation point, with an edge between a block and each articulation
+ * point it contains. Every other vertex maps to its only block. Any path
+ * between two vertices of the graph passes through exactly the articulation
+ * points on the tree path between their nodes, so:
+ * - removing x disconnects u from v iff x's node is on the tree path between
+ *   the nodes of u and v
+ * - u and v share a block iff their nodes are as close as the block in
+ *   between allows
+ * Tree paths are measured with depths and binary-lifting LCA.
+ *
+ * Time Complexity : O((V+E) + V log V) to build ; O(log V) per query
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BlockCutTree {
+
+	private final int blockCount;
+	private final int[] node; // tree node of each vertex
+	private final boolean[] isCut;
+	private final CSRGraph tree;
+
+	// BFS forest of the tree with binary lifting table, up[k][x] being the
+	// 2^k-th ancestor of x (a root is its own ancestor)
+	private final int[] depth, treeId;
+	private final int[][] up;
+
+	public BlockCutTree(BridgesAndArticulationPoints solver, int n) {
+		List<int[]> blocks = solver.findBiconnectedComponents();
+		isCut = solver.findArticulationPoints();
+		blockCount = blocks.size();
+
+		// Blocks come first, then articulation points, then isolated vertices
+		node = new int[n];
+		Arrays.fill(node, -1);
+		int nodes = blockCount;
+		for (int v = 0; v < n; v++)
+			if (isCut[v])
+				node[v] = nodes++;
+		CSRGraph.Builder builder = new CSRGraph.Builder(n + blockCount);
+		for (int b = 0; b < blockCount; b++) {
+			for (int v : blocks.get(b)) {
+				if (isCut[v])
+					builder.addUndirectedEdge(b, node[v], 1);
+				else
+					node[v] = b;
+			}
+		}
+		for (int v = 0; v < n; v++)
+			if (node[v] < 0)
+				node[v] = nodes++;
+		tree = shrink(builder.build(), nodes);
+
+		depth = new int[nodes];
+		treeId = new int[nodes];
+		int levels = 1;
+		while ((1 << levels) < nodes)
+			levels++;
+		up = new int[levels][nodes];
+		index();
+	}
+
+	public BlockCutTree(CSRGraph graph) {
+		this(new BridgesAndArticulationPoints(graph), graph.numVertices());
+	}
+
+	// The builder needs a vertex count up front, cut the unused tail off
+	private static CSRGraph shrink(CSRGraph graph, int nodes) {
+		return new CSRGraph(nodes, Arrays.copyOf(graph.offsets, nodes + 1), graph.targets, null);
+	}
+
+	private void index() {
+		int nodes = depth.length;
+		int[] queue = new int[nodes];
+		boolean[] seen = new boolean[nodes];
+		for (int root = 0; root < nodes; root++) {
+			if (seen[root])
+				continue;
+			seen[root] = true;
+			up[0][root] = root;
+			treeId[root] = root;
+			int head = 0, tail = 0;
+			queue[tail++] = root;
+			while (head < tail) {
+				int x = queue[head++];
+				for (int e = tree.offsets[x]; e < tree.offsets[x + 1]; e++) {
+					int y = tree.targets[e];
+					if (seen[y])
+						continue;
+					seen[y] = true;
+					up[0][y] = x;
+					depth[y] = depth[x] + 1;
+					treeId[y] = root;
+					queue[tail++] = y;
+				}
+			}
+		}
+		for (int k = 1; k < up.length; k++)
+			for (int x = 0; x < nodes; x++)
+				up[k][x] = up[k - 1][up[k - 1][x]];
+	}
+
+	public int blockCount() {
+		return blockCount;
+	}
+
+	public boolean isArticulationPoint(int v) {
+		return isCut[v];
+	}
+
+	public boolean isConnected(int u, int v) {
+		return treeId[node[u]] == treeId[node[v]];
+	}
+
+	/**
+	 * Returns true if u and v are connected and every path between them passes
+	 * through x. u, v and x must be different vertices.
+	 */
+	public boolean separates(int x, int u, int v) {
+		if (x == u || x == v || u == v)
+			throw new IllegalArgumentException("Vertices must be different");
+		if (!isCut[x] || !isConnected(u, v) || !isConnected(x, u))
+			return false;
+		int a = node[u], b = node[v], c = node[x];
+		return distance(a, c) + distance(c, b) == distance(a, b);
+	}
+
+	/**
+	 * Returns true if u and v lie in a common biconnected component, i.e. they
+	 * stay connected after removing any single other vertex.
+	 */
+	public boolean shareBlock(int u, int v) {
+		if (u == v || !isConnected(u, v))
+			return u == v;
+		// A non-cut vertex is its block's node, a cut vertex is one edge away
+		// from each of its blocks
+		int expected = (isCut[u] ? 1 : 0) + (isCut[v] ? 1 : 0);
+		return distance(node[u], node[v]) == expected;
+	}
+
+	private int distance(int a, int b) {
+		return depth[a] + depth[b] - 2 * depth[lca(a, b)];
+	}
+
+	// Nodes must be in the same tree
+	private int lca(int a, int b) {
+		if (depth[a] < depth[b]) {
+			int t = a;
+			a = b;
+			b = t;
+		}
+		int diff = depth[a] - depth[b];
+		for (int k = 0; diff > 0; k++, diff >>= 1)
+			if ((diff & 1) != 0)
+				a = up[k][a];
+		if (a == b)
+			return a;
+		for (int k = up.length - 1; k >= 0; k--) {
+			if (up[k][a] != up[k][b]) {
+				a = up[k][a];
+				b = up[k][b];
+			}
+		}
+		return up[0][a];
+	}
+
+	public static void main(String[] args) {
+		int n = 9;
+		CSRGraph graph = new CSRGraph.Builder(n).addUndirectedEdge(0, 1, 1).addUndirectedEdge(0, 2, 1)
+				.addUndirectedEdge(1, 2, 1).addUndirectedEdge(2, 3, 1).addUndirectedEdge(3, 4, 1)
+				.addUndirectedEdge(2, 5, 1).addUndirectedEdge(5, 6, 1).addUndirectedEdge(6, 7, 1)
+				.addUndirectedEdge(7, 8, 1).addUndirectedEdge(8, 5, 1).build();
+
+		BlockCutTree index = new BlockCutTree(graph);
+		System.out.println("Removing 2 disconnects 0 from 7: " + index.separates(2, 0, 7));
+		System.out.println("Removing 6 disconnects 5 from 7: " + index.separates(6, 5, 7));
+		System.out.println("5 and 7 share a block: " + index.shareBlock(5, 7));
+		System.out.println("2 and 6 share a block: " + index.shareBlock(2, 6));
+
+		// Output:
+		// Removing 2 disconnects 0 from 7: true
+		// Removing 6 disconnects 5 from 7: false
+		// 5 and 7 share a block: true
+		// 2 and 6 share a block: false
+	}
+}
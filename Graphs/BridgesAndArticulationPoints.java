@@ -1,6 +1,10 @@
 /**
  * Finds all articulation points on an undirected graph.
  *
+ * The same DFS also splits the edges into biconnected components (blocks):
+ * vertices stay on a stack until the DFS returns to a vertex that separates
+ * them from the rest, at which point they form a block with it.
+ *
  * Time Complexity : O(V+E) , where V - vertex and E - edge.
  */
 
@@ -9,6 +13,7 @@ package Graphs;
 import static java.lang.Math.min;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class BridgesAndArticulationPoints {
@@ -16,21 +21,38 @@ public class BridgesAndArticulationPoints {
 	private int n, id, rootNodeOutcomingEdgeCount;
 	private int[] low, ids;
 	private boolean solved;
-	private boolean[] visited, isArticulationPoint;
-	private List<List<Integer>> graph;
+	private boolean[] isArticulationPoint;
+	private CSRGraph graph;
 	private List<Integer> bridges;
+	private List<int[]> blocks;
+	private int[] vertexStack; // vertices not yet assigned to a block
+	private int stackSize;
 
 	public BridgesAndArticulationPoints(List<List<Integer>> graph) {
+		this(CSRGraph.fromAdjacencyList(graph));
+	}
+
+	// The graph must hold both directions of every undirected edge
+	public BridgesAndArticulationPoints(CSRGraph graph) {
 		if (graph == null)
 			throw new IllegalArgumentException();
 		this.graph = graph;
-		n = graph.size();
+		n = graph.numVertices();
 	}
 
 	public boolean[] findArticulationPoints() {
 		return isArticulationPoint;
 	}
 
+	// Returns the vertices of every biconnected component, i.e. every maximal
+	// set of edges where any two lie on a common simple cycle. A bridge is a
+	// component of its own with two vertices, isolated vertices belong to none.
+	// Articulation points are exactly the vertices of more than one component.
+	public List<int[]> findBiconnectedComponents() {
+		findBridges();
+		return blocks;
+	}
+
 	// Returns a list of pairs of nodes indicating which nodes form bridges.
 	// The returned list is always of even length and indexes (2*i, 2*i+1) form a
 	// pair. For example, nodes at indexes (0, 1) are a pair, (2, 3) are another
@@ -41,16 +63,23 @@ public class BridgesAndArticulationPoints {
 
 		low = new int[n]; // Low link values
 		ids = new int[n]; // Nodes ids
-		visited = new boolean[n];
 		isArticulationPoint = new boolean[n];
+		vertexStack = new int[n];
+		stackSize = 0;
 
 		bridges = new ArrayList<>();
+		blocks = new ArrayList<>();
 
-		// Finds all bridges in the graph across various connected components.
+		// Finds all bridges in the graph across various connected components. The
+		// DFS runs on an explicit stack, so long paths cannot overflow the thread
+		// stack.
+		IterativeDFS dfs = new IterativeDFS(graph);
+		LowLink visitor = new LowLink();
 		for (int i = 0; i < n; i++)
-			if (!visited[i]) {
+			if (!dfs.isVisited(i)) {
 				rootNodeOutcomingEdgeCount = 0;
-				dfs(i, i, -1, bridges);
+				visitor.root = i;
+				dfs.run(i, visitor);
 				isArticulationPoint[i] = rootNodeOutcomingEdgeCount > 1;
 			}
 
@@ -58,31 +87,46 @@ public class BridgesAndArticulationPoints {
 		return bridges;
 	}
 
-	private void dfs(int root, int at, int parent, List<Integer> bridges) {
-
-		if (root == parent)
-			rootNodeOutcomingEdgeCount++;
-
-		visited[at] = true;
-		low[at] = ids[at] = id++;
-
-		for (Integer to : graph.get(at)) {
-			if (to == parent)
-				continue;
-			if (!visited[to]) {
-				dfs(root, to, at, bridges);
-				low[at] = min(low[at], low[to]);
-				if (ids[at] < low[to]) { // Add bridge and articulation point found via bridge (either of the vertex in
-											// a bridge should be an articulation point connecting two SCCs)
-					bridges.add(at);
-					bridges.add(to);
-					isArticulationPoint[at] = true;
-				}
-				if (ids[at] == low[to]) // Articulation point found via cycles. Technically this condition can be
-										// linked with the previous condition for bridges.
-					isArticulationPoint[at] = true;
-			} else {
+	private class LowLink implements IterativeDFS.Visitor {
+
+		int root;
+
+		@Override
+		public void discover(int at, int parent) {
+			if (root == parent)
+				rootNodeOutcomingEdgeCount++;
+			low[at] = ids[at] = id++;
+			vertexStack[stackSize++] = at;
+		}
+
+		@Override
+		public void nonTreeEdge(int at, int to, int parent) {
+			if (to != parent)
 				low[at] = min(low[at], ids[to]);
+		}
+
+		@Override
+		public void treeEdgeFinished(int at, int to) {
+			low[at] = min(low[at], low[to]);
+			if (ids[at] < low[to]) { // Add bridge and articulation point found via bridge (either of the vertex in
+										// a bridge should be an articulation point connecting two SCCs)
+				bridges.add(at);
+				bridges.add(to);
+				isArticulationPoint[at] = true;
+			}
+			if (ids[at] == low[to]) // Articulation point found via cycles. Technically this condition can be
+									// linked with the previous condition for bridges.
+				isArticulationPoint[at] = true;
+			if (ids[at] <= low[to]) { // Nothing below 'to' reaches above 'at', so the subtree's
+										// remaining vertices and 'at' form a block
+				int start = stackSize;
+				while (vertexStack[--start] != to)
+					;
+				int[] block = new int[stackSize - start + 1];
+				System.arraycopy(vertexStack, start, block, 0, stackSize - start);
+				block[block.length - 1] = at;
+				stackSize = start;
+				blocks.add(block);
 			}
 		}
 	}
@@ -143,5 +187,14 @@ public class BridgesAndArticulationPoints {
 		for (int i = 0; i < n; i++)
 			if (isArticulationPoint[i])
 				System.out.printf("Node %d is an articulation\n", i);
+
+		// Prints:
+		// Block: [4, 3]
+		// Block: [3, 2]
+		// Block: [6, 7, 8, 5]
+		// Block: [5, 2]
+		// Block: [1, 2, 0]
+		for (int[] block : solver.findBiconnectedComponents())
+			System.out.println("Block: " + Arrays.toString(block));
 	}
 }
@@ -0,0 +1,233 @@
+/**
+ * An immutable directed graph stored in compressed sparse row (CSR) form.
+ *
+ * The out-edges of vertex v occupy the index range [offsets[v], offsets[v+1])
+ * of the targets (and, if present, weights) arrays. Edges keep the order in
+ * which they were added, so algorithms visit neighbours exactly as they would
+ * over the equivalent adjacency list.
+ *
+ * Memory : O(V+E) primitives, no per-edge objects.
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CSRGraph implements GraphView {
+
+	final int V;
+	final int[] offsets;
+	final int[] targets;
+	final double[] weights; // null for unweighted graphs
+
+	CSRGraph(int V, int[] offsets, int[] targets, double[] weights) {
+		this.V = V;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	public int numVertices() {
+		return V;
+	}
+
+	public int numEdges() {
+		return targets.length;
+	}
+
+	@Override
+	public long edgeCount() {
+		return targets.length;
+	}
+
+	public boolean isWeighted() {
+		return weights != null;
+	}
+
+	public int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	// Index of the first out-edge of v
+	public long begin(int v) {
+		return offsets[v];
+	}
+
+	// Index one past the last out-edge of v
+	public long end(int v) {
+		return offsets[v + 1];
+	}
+
+	public int target(long e) {
+		return targets[(int) e];
+	}
+
+	// Weight of edge e, 1 for unweighted graphs
+	public double weight(long e) {
+		return weights == null ? 1 : weights[(int) e];
+	}
+
+	/**
+	 * Returns the graph with every edge reversed, O(V+E).
+	 */
+	public CSRGraph transpose() {
+		int E = targets.length;
+		int[] tOffsets = new int[V + 1];
+		for (int e = 0; e < E; e++)
+			tOffsets[targets[e] + 1]++;
+		for (int v = 0; v < V; v++)
+			tOffsets[v + 1] += tOffsets[v];
+
+		int[] tTargets = new int[E];
+		double[] tWeights = weights == null ? null : new double[E];
+		int[] next = Arrays.copyOf(tOffsets, V);
+		for (int from = 0; from < V; from++) {
+			for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+				int te = next[targets[e]]++;
+				tTargets[te] = from;
+				if (tWeights != null)
+					tWeights[te] = weights[e];
+			}
+		}
+		return new CSRGraph(V, tOffsets, tTargets, tWeights);
+	}
+
+	/**
+	 * Builds a graph from an adjacency list of Integers, as created by
+	 * StronglyConnectedComponents.createGraph and friends.
+	 */
+	public static CSRGraph fromAdjacencyList(List<List<Integer>> graph) {
+		if (graph == null)
+			throw new IllegalArgumentException("Graph cannot be null");
+		int V = graph.size();
+		int[] offsets = new int[V + 1];
+		for (int v = 0; v < V; v++)
+			offsets[v + 1] = offsets[v] + graph.get(v).size();
+		int[] targets = new int[offsets[V]];
+		for (int v = 0, e = 0; v < V; v++)
+			for (int to : graph.get(v))
+				targets[e++] = to;
+		return new CSRGraph(V, offsets, targets, null);
+	}
+
+	/**
+	 * Builds an unweighted graph from {from, to} pairs.
+	 */
+	public static CSRGraph fromEdges(int V, int[][] edges) {
+		Builder builder = new Builder(V, edges.length);
+		for (int[] e : edges)
+			builder.addEdge(e[0], e[1]);
+		return builder.build();
+	}
+
+	/**
+	 * Builds a graph from parallel from/to/cost arrays, cost may be null for an
+	 * unweighted graph. The arrays are not modified.
+	 */
+	public static CSRGraph fromEdgeArrays(int V, int[] from, int[] to, double[] cost) {
+		if (from.length != to.length || (cost != null && cost.length != from.length))
+			throw new IllegalArgumentException("Edge arrays must have the same length");
+		for (int i = 0; i < from.length; i++)
+			if (from[i] < 0 || from[i] >= V || to[i] < 0 || to[i] >= V)
+				throw new IllegalArgumentException("Edge " + from[i] + "->" + to[i] + " is out of range");
+		return pack(V, from.length, from, to, cost);
+	}
+
+	// Stable counting sort of the first E edges by source vertex
+	static CSRGraph pack(int V, int E, int[] from, int[] to, double[] cost) {
+		int[] offsets = new int[V + 1];
+		for (int i = 0; i < E; i++)
+			offsets[from[i] + 1]++;
+		for (int v = 0; v < V; v++)
+			offsets[v + 1] += offsets[v];
+
+		int[] targets = new int[E];
+		double[] weights = cost == null ? null : new double[E];
+		int[] next = Arrays.copyOf(offsets, V);
+		for (int i = 0; i < E; i++) {
+			int e = next[from[i]]++;
+			targets[e] = to[i];
+			if (weights != null)
+				weights[e] = cost[i];
+		}
+		return new CSRGraph(V, offsets, targets, weights);
+	}
+
+	/**
+	 * Builder that collects edges in flat primitive arrays and lays them out in
+	 * CSR order with a stable counting sort on build().
+	 */
+	public static class Builder {
+
+		private final int V;
+		private int E;
+		private int[] from, to;
+		private double[] cost;
+
+		public Builder(int V) {
+			this(V, 16);
+		}
+
+		public Builder(int V, int expectedEdges) {
+			if (V < 0)
+				throw new IllegalArgumentException("Number of vertices cannot be negative");
+			this.V = V;
+			int capacity = Math.max(expectedEdges, 1);
+			from = new int[capacity];
+			to = new int[capacity];
+		}
+
+		public Builder addEdge(int from, int to) {
+			return addEdge(from, to, 1);
+		}
+
+		public Builder addEdge(int u, int v, double weight) {
+			if (u < 0 || u >= V || v < 0 || v >= V)
+				throw new IllegalArgumentException("Edge " + u + "->" + v + " is out of range");
+			if (E == from.length) {
+				int capacity = from.length * 2;
+				from = Arrays.copyOf(from, capacity);
+				to = Arrays.copyOf(to, capacity);
+				if (cost != null)
+					cost = Arrays.copyOf(cost, capacity);
+			}
+			// Weights are only materialised once a non-unit weight shows up
+			if (cost == null && weight != 1) {
+				cost = new double[from.length];
+				Arrays.fill(cost, 0, E, 1);
+			}
+			from[E] = u;
+			to[E] = v;
+			if (cost != null)
+				cost[E] = weight;
+			E++;
+			return this;
+		}
+
+		// Adds both u->v and v->u
+		public Builder addUndirectedEdge(int u, int v, double weight) {
+			addEdge(u, v, weight);
+			return addEdge(v, u, weight);
+		}
+
+		public CSRGraph build() {
+			return pack(V, E, from, to, cost);
+		}
+	}
+
+	public static void main(String[] args) {
+		CSRGraph graph = new CSRGraph.Builder(4).addEdge(0, 1, 1).addEdge(0, 2, 4).addEdge(1, 2, 1).addEdge(2, 3, 5)
+				.build();
+
+		for (int v = 0; v < graph.numVertices(); v++)
+			for (long e = graph.begin(v); e < graph.end(v); e++)
+				System.out.printf("%d -> %d (%.1f)\n", v, graph.target(e), graph.weight(e));
+
+		// Output:
+		// 0 -> 1 (1.0)
+		// 0 -> 2 (4.0)
+		// 1 -> 2 (1.0)
+		// 2 -> 3 (5.0)
+	}
+}
@@ -0,0 +1,486 @@
+/**
+ * Contraction hierarchies (CH) for repeated point-to-point shortest path
+ * queries on a graph that rarely changes.
+ *
+ * Preprocessing contracts the vertices one at a time in order of importance.
+ * Removing v adds a shortcut u->w of weight d(u,v)+d(v,w) for every pair of
+ * neighbours whose only shortest path ran through v; a bounded local "witness"
+ * search proves which shortcuts are unnecessary. Afterwards every shortest
+ * path can be found going only upwards in rank from both ends, so a query is
+ * a bidirectional Dijkstra over the small upward and downward graphs.
+ *
+ * The hierarchy can be written to disk once and loaded by every query
+ * process. Queries are reentrant, using per-thread workspaces like
+ * DijkstraQueryEngine.
+ *
+ * Preprocessing : roughly O(V * witness search) ; Query : typically a few
+ * hundred settled vertices on road-like graphs
+ */
+
+package Graphs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import Trees.IndexedDHeap;
+
+public class ContractionHierarchy {
+
+	private static final int MAGIC = 0x43484731; // "CHG1"
+
+	// Witness searches give up after settling this many vertices. Giving up
+	// early only costs extra shortcuts, never correctness.
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+
+	private final int[] rank;
+	private final CSRGraph up; // edges u->v with rank[u] < rank[v]
+	private final CSRGraph down; // edges u->v with rank[u] > rank[v], stored reversed as v->u
+	private final int shortcutCount;
+	private final long buildMillis;
+	private final ThreadLocal<DijkstraQueryEngine.Workspace> workspaces;
+
+	private ContractionHierarchy(int[] rank, CSRGraph up, CSRGraph down, int shortcutCount, long buildMillis) {
+		this.rank = rank;
+		this.up = up;
+		this.down = down;
+		this.shortcutCount = shortcutCount;
+		this.buildMillis = buildMillis;
+		this.workspaces = ThreadLocal.withInitial(() -> new DijkstraQueryEngine.Workspace(rank.length));
+	}
+
+	// Contracts the graph a Dijkstra instance currently answers queries on
+	public static ContractionHierarchy build(Dijkstra dijkstra) {
+		return build(dijkstra.engine().graph());
+	}
+
+	/**
+	 * Contracts every vertex of the graph, heap or mapped. Edge weights must be
+	 * non-negative and the edge count must fit an int array.
+	 */
+	public static ContractionHierarchy build(GraphView graph) {
+		long start = System.nanoTime();
+		Contractor contractor = new Contractor(graph);
+		contractor.contractAll();
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		return contractor.result(millis);
+	}
+
+	public int numVertices() {
+		return rank.length;
+	}
+
+	public int shortcutCount() {
+		return shortcutCount;
+	}
+
+	// Wall clock time spent in build(), 0 for a hierarchy read from disk
+	public long buildMillis() {
+		return buildMillis;
+	}
+
+	public int rank(int v) {
+		return rank[v];
+	}
+
+	/**
+	 * Returns the length of the shortest path from source to dest, or positive
+	 * infinity if dest cannot be reached. Safe to call from many threads at once.
+	 */
+	public double shortestPath(int source, int dest) {
+		if (source < 0 || source >= rank.length || dest < 0 || dest >= rank.length)
+			throw new IllegalArgumentException("Vertex out of range");
+		if (source == dest)
+			return 0;
+
+		DijkstraQueryEngine.Workspace ws = workspaces.get();
+		ws.reset();
+		ws.ensureBackward();
+		IndexedDHeap fwd = ws.heap, bwd = ws.heapB;
+		ws.setDist(source, 0);
+		ws.setDistB(dest, 0);
+		fwd.insert(source, 0);
+		bwd.insert(dest, 0);
+
+		// Unlike plain bidirectional Dijkstra, the searches may not stop as soon as
+		// they meet: each one runs until its own minimum can no longer improve best.
+		double best = Double.POSITIVE_INFINITY;
+		while (true) {
+			boolean forward = !fwd.isEmpty() && fwd.peekMinKey() < best;
+			boolean backward = !bwd.isEmpty() && bwd.peekMinKey() < best;
+			if (!forward && !backward)
+				break;
+			if (forward && (!backward || fwd.peekMinKey() <= bwd.peekMinKey())) {
+				int at = fwd.pollMinIndex();
+				double d = ws.dist(at);
+				best = Math.min(best, d + ws.distB(at));
+				for (int e = up.offsets[at]; e < up.offsets[at + 1]; e++) {
+					int to = up.targets[e];
+					double nd = d + up.weights[e];
+					if (nd < ws.dist(to)) {
+						ws.setDist(to, nd);
+						fwd.insertOrDecrease(to, nd);
+					}
+				}
+			} else {
+				int at = bwd.pollMinIndex();
+				double d = ws.distB(at);
+				best = Math.min(best, d + ws.dist(at));
+				for (int e = down.offsets[at]; e < down.offsets[at + 1]; e++) {
+					int to = down.targets[e];
+					double nd = d + down.weights[e];
+					if (nd < ws.distB(to)) {
+						ws.setDistB(to, nd);
+						bwd.insertOrDecrease(to, nd);
+					}
+				}
+			}
+			ws.settled++;
+		}
+		return best;
+	}
+
+	/**
+	 * Writes the hierarchy so that query processes can load it without
+	 * re-running the contraction.
+	 */
+	public void save(Path file) throws IOException {
+		try (OutputStream os = Files.newOutputStream(file);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+			out.writeInt(MAGIC);
+			out.writeInt(rank.length);
+			out.writeInt(shortcutCount);
+			for (int r : rank)
+				out.writeInt(r);
+			writeGraph(out, up);
+			writeGraph(out, down);
+		}
+	}
+
+	public static ContractionHierarchy load(Path file) throws IOException {
+		try (InputStream is = Files.newInputStream(file);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException(file + " is not a contraction hierarchy file");
+			int V = in.readInt();
+			int shortcuts = in.readInt();
+			int[] rank = new int[V];
+			for (int v = 0; v < V; v++)
+				rank[v] = in.readInt();
+			CSRGraph up = readGraph(in, V);
+			CSRGraph down = readGraph(in, V);
+			return new ContractionHierarchy(rank, up, down, shortcuts, 0);
+		}
+	}
+
+	private static void writeGraph(DataOutputStream out, CSRGraph g) throws IOException {
+		out.writeInt(g.numEdges());
+		for (int o : g.offsets)
+			out.writeInt(o);
+		for (int e = 0; e < g.numEdges(); e++) {
+			out.writeInt(g.targets[e]);
+			out.writeDouble(g.weights[e]);
+		}
+	}
+
+	private static CSRGraph readGraph(DataInputStream in, int V) throws IOException {
+		int E = in.readInt();
+		int[] offsets = new int[V + 1];
+		for (int v = 0; v <= V; v++)
+			offsets[v] = in.readInt();
+		int[] targets = new int[E];
+		double[] weights = new double[E];
+		for (int e = 0; e < E; e++) {
+			targets[e] = in.readInt();
+			weights[e] = in.readDouble();
+		}
+		return new CSRGraph(V, offsets, targets, weights);
+	}
+
+	/**
+	 * Mutable working graph used while contracting. Every vertex keeps growable
+	 * primitive in/out lists; contracted vertices are skipped, not removed.
+	 */
+	private static final class Contractor {
+
+		final int V;
+		final int[][] outTo, inFrom;
+		final double[][] outW, inW;
+		final int[] outDeg, inDeg;
+		final boolean[] contracted;
+		final int[] rank, contractedNeighbours;
+
+		// All original edges plus shortcuts, split by rank once contraction is done
+		int edgeCount, shortcutCount;
+		int[] edgeFrom, edgeTo;
+		double[] edgeW;
+
+		// Witness search state, stamped so that each search resets in O(1)
+		final double[] witnessDist;
+		final int[] witnessStamp;
+		final IndexedDHeap witnessHeap;
+		int witnessGeneration;
+
+		Contractor(GraphView graph) {
+			V = graph.numVertices();
+			outTo = new int[V][];
+			inFrom = new int[V][];
+			outW = new double[V][];
+			inW = new double[V][];
+			outDeg = new int[V];
+			inDeg = new int[V];
+			contracted = new boolean[V];
+			rank = new int[V];
+			contractedNeighbours = new int[V];
+			for (int v = 0; v < V; v++) {
+				outTo[v] = new int[Math.max(graph.degree(v), 2)];
+				outW[v] = new double[outTo[v].length];
+				inFrom[v] = new int[2];
+				inW[v] = new double[2];
+			}
+
+			if (graph.edgeCount() > Integer.MAX_VALUE - 16)
+				throw new IllegalArgumentException("Graph has too many edges to contract");
+			int E = (int) graph.edgeCount();
+			edgeFrom = new int[E + 16];
+			edgeTo = new int[E + 16];
+			edgeW = new double[E + 16];
+			for (int u = 0; u < V; u++) {
+				for (long e = graph.begin(u), end = graph.end(u); e < end; e++) {
+					double w = graph.weight(e);
+					if (w < 0)
+						throw new IllegalArgumentException("Contraction hierarchies need non-negative weights");
+					int v = graph.target(e);
+					if (u != v && addOrLower(u, v, w))
+						recordEdge(u, v, w);
+				}
+			}
+
+			witnessDist = new double[V];
+			witnessStamp = new int[V];
+			witnessHeap = new IndexedDHeap(Dijkstra.HEAP_DEGREE, V);
+		}
+
+		// Adds u->v or lowers the weight of an existing u->v. Returns false if an
+		// equal or shorter u->v already existed.
+		boolean addOrLower(int u, int v, double w) {
+			for (int i = 0; i < outDeg[u]; i++) {
+				if (outTo[u][i] == v) {
+					if (outW[u][i] <= w)
+						return false;
+					outW[u][i] = w;
+					for (int j = 0; j < inDeg[v]; j++)
+						if (inFrom[v][j] == u)
+							inW[v][j] = w;
+					return true;
+				}
+			}
+			if (outDeg[u] == outTo[u].length) {
+				outTo[u] = Arrays.copyOf(outTo[u], outDeg[u] * 2);
+				outW[u] = Arrays.copyOf(outW[u], outDeg[u] * 2);
+			}
+			outTo[u][outDeg[u]] = v;
+			outW[u][outDeg[u]++] = w;
+			if (inDeg[v] == inFrom[v].length) {
+				inFrom[v] = Arrays.copyOf(inFrom[v], inDeg[v] * 2);
+				inW[v] = Arrays.copyOf(inW[v], inDeg[v] * 2);
+			}
+			inFrom[v][inDeg[v]] = u;
+			inW[v][inDeg[v]++] = w;
+			return true;
+		}
+
+		void recordEdge(int u, int v, double w) {
+			if (edgeCount == edgeFrom.length) {
+				int capacity = edgeCount * 2;
+				edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+				edgeTo = Arrays.copyOf(edgeTo, capacity);
+				edgeW = Arrays.copyOf(edgeW, capacity);
+			}
+			edgeFrom[edgeCount] = u;
+			edgeTo[edgeCount] = v;
+			edgeW[edgeCount++] = w;
+		}
+
+		void contractAll() {
+			IndexedDHeap order = new IndexedDHeap(Dijkstra.HEAP_DEGREE, V);
+			for (int v = 0; v < V; v++)
+				order.insert(v, priority(v));
+
+			int next = 0;
+			while (!order.isEmpty()) {
+				int v = order.pollMinIndex();
+				// Priorities go stale as neighbours get contracted, so re-check lazily
+				double p = priority(v);
+				if (!order.isEmpty() && p > order.peekMinKey()) {
+					order.insert(v, p);
+					continue;
+				}
+				contract(v, false);
+				contracted[v] = true;
+				rank[v] = next++;
+				detach(v);
+			}
+		}
+
+		// Drops v from its neighbours' lists so later scans do not see it again
+		void detach(int v) {
+			for (int i = 0; i < outDeg[v]; i++) {
+				int w = outTo[v][i];
+				contractedNeighbours[w]++;
+				for (int j = 0; j < inDeg[w]; j++) {
+					if (inFrom[w][j] == v) {
+						inFrom[w][j] = inFrom[w][--inDeg[w]];
+						inW[w][j] = inW[w][inDeg[w]];
+						break;
+					}
+				}
+			}
+			for (int i = 0; i < inDeg[v]; i++) {
+				int u = inFrom[v][i];
+				contractedNeighbours[u]++;
+				for (int j = 0; j < outDeg[u]; j++) {
+					if (outTo[u][j] == v) {
+						outTo[u][j] = outTo[u][--outDeg[u]];
+						outW[u][j] = outW[u][outDeg[u]];
+						break;
+					}
+				}
+			}
+		}
+
+		// Edge difference plus the number of already contracted neighbours, which
+		// spreads contraction evenly over the graph
+		double priority(int v) {
+			int removed = 0;
+			for (int i = 0; i < outDeg[v]; i++)
+				if (!contracted[outTo[v][i]])
+					removed++;
+			for (int i = 0; i < inDeg[v]; i++)
+				if (!contracted[inFrom[v][i]])
+					removed++;
+			return contract(v, true) - removed + contractedNeighbours[v];
+		}
+
+		// Adds (or with simulate, only counts) the shortcuts needed to remove v
+		int contract(int v, boolean simulate) {
+			int shortcuts = 0;
+			for (int i = 0; i < inDeg[v]; i++) {
+				int u = inFrom[v][i];
+				if (contracted[u])
+					continue;
+				double toV = inW[v][i];
+				double limit = -1; // stays negative if v has no other out-neighbour
+				for (int j = 0; j < outDeg[v]; j++)
+					if (!contracted[outTo[v][j]] && outTo[v][j] != u)
+						limit = Math.max(limit, toV + outW[v][j]);
+				if (limit < 0)
+					continue;
+
+				witnessSearch(u, v, limit);
+				for (int j = 0; j < outDeg[v]; j++) {
+					int w = outTo[v][j];
+					if (contracted[w] || w == u)
+						continue;
+					double viaV = toV + outW[v][j];
+					if (witnessDist(w) > viaV) {
+						shortcuts++;
+						if (!simulate && addOrLower(u, w, viaV)) {
+							recordEdge(u, w, viaV);
+							shortcutCount++;
+						}
+					}
+				}
+			}
+			return shortcuts;
+		}
+
+		double witnessDist(int v) {
+			return witnessStamp[v] == witnessGeneration ? witnessDist[v] : Double.POSITIVE_INFINITY;
+		}
+
+		// Dijkstra from source avoiding 'avoid' and contracted vertices, bounded by
+		// limit and WITNESS_SETTLE_LIMIT
+		void witnessSearch(int source, int avoid, double limit) {
+			witnessHeap.clear();
+			witnessGeneration++;
+			witnessDist[source] = 0;
+			witnessStamp[source] = witnessGeneration;
+			witnessHeap.insert(source, 0);
+			for (int settled = 0; !witnessHeap.isEmpty() && settled < WITNESS_SETTLE_LIMIT; settled++) {
+				if (witnessHeap.peekMinKey() > limit)
+					break;
+				int at = witnessHeap.pollMinIndex();
+				double d = witnessDist[at];
+				for (int i = 0; i < outDeg[at]; i++) {
+					int to = outTo[at][i];
+					if (to == avoid || contracted[to])
+						continue;
+					double nd = d + outW[at][i];
+					if (nd < witnessDist(to)) {
+						witnessDist[to] = nd;
+						witnessStamp[to] = witnessGeneration;
+						witnessHeap.insertOrDecrease(to, nd);
+					}
+				}
+			}
+		}
+
+		ContractionHierarchy result(long buildMillis) {
+			CSRGraph.Builder up = new CSRGraph.Builder(V), down = new CSRGraph.Builder(V);
+			for (int i = 0; i < edgeCount; i++) {
+				int u = edgeFrom[i], v = edgeTo[i];
+				if (rank[u] < rank[v])
+					up.addEdge(u, v, edgeW[i]);
+				else
+					down.addEdge(v, u, edgeW[i]);
+			}
+			return new ContractionHierarchy(rank, withWeights(up.build()), withWeights(down.build()), shortcutCount,
+					buildMillis);
+		}
+
+		// The query loop reads weights directly, so unit weights are spelled out
+		static CSRGraph withWeights(CSRGraph g) {
+			if (g.isWeighted())
+				return g;
+			double[] weights = new double[g.numEdges()];
+			Arrays.fill(weights, 1);
+			return new CSRGraph(g.numVertices(), g.offsets, g.targets, weights);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int n = 6;
+		CSRGraph graph = new CSRGraph.Builder(n).addUndirectedEdge(0, 1, 2).addUndirectedEdge(1, 2, 2)
+				.addUndirectedEdge(2, 3, 2).addUndirectedEdge(3, 4, 2).addUndirectedEdge(4, 5, 2)
+				.addUndirectedEdge(0, 5, 15).addUndirectedEdge(1, 4, 7).build();
+
+		ContractionHierarchy ch = ContractionHierarchy.build(graph);
+		System.out.printf("Contracted in %d ms, %d shortcuts added\n", ch.buildMillis(), ch.shortcutCount());
+		Path file = Files.createTempFile("graph", ".ch");
+		ch.save(file);
+		ContractionHierarchy loaded = ContractionHierarchy.load(file);
+		Files.delete(file);
+
+		DijkstraQueryEngine dijkstra = new DijkstraQueryEngine(graph);
+		for (int t = 0; t < n; t++)
+			System.out.printf("0 -> %d : CH %.1f, Dijkstra %.1f\n", t, loaded.shortestPath(0, t),
+					dijkstra.shortestPath(0, t));
+
+		// Output:
+		// Contracted in 1 ms, 6 shortcuts added
+		// 0 -> 0 : CH 0.0, Dijkstra 0.0
+		// 0 -> 1 : CH 2.0, Dijkstra 2.0
+		// 0 -> 2 : CH 4.0, Dijkstra 4.0
+		// 0 -> 3 : CH 6.0, Dijkstra 6.0
+		// 0 -> 4 : CH 8.0, Dijkstra 8.0
+		// 0 -> 5 : CH 10.0, Dijkstra 10.0
+	}
+}
@@ -0,0 +1,295 @@
+/**
+ * Delta-stepping single source shortest paths for graphs with non-negative
+ * edge weights, relaxing many vertices in parallel.
+ *
+ * Tentative distances are grouped into buckets of width delta. The lowest
+ * non-empty bucket is settled by repeatedly relaxing the light edges
+ * (weight <= delta) of its vertices in parallel, since those can refill the
+ * same bucket; heavy edges can only reach later buckets and are relaxed once
+ * the bucket is final. A delta near zero degenerates to Dijkstra, a huge delta
+ * to Bellman-Ford.
+ *
+ * Distances live in an AtomicLongArray as raw double bits: for non-negative
+ * doubles the bit patterns order the same way as the values, so a CAS loop on
+ * the bits implements an atomic min.
+ *
+ * Time Complexity : O(V + E + L * (max distance / delta)) work for graphs with
+ * maximum shortest path edge count L.
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class DeltaStepping {
+
+	// Frontier vertices handled by one fork-join leaf task
+	private static final int GRAIN = 256;
+
+	private final CSRGraph graph;
+	private final double delta;
+	private final ForkJoinPool pool;
+
+	private AtomicLongArray dist;
+	private AtomicIntegerArray mark; // phase in which a vertex was last queued
+	private int phase;
+
+	// Vertices whose distance improved in the current phase, filled in chunks
+	private int[] improved;
+	private final AtomicInteger improvedCount = new AtomicInteger();
+
+	// Cyclic bucket array, bucket b lives at index b % buckets.length. Entries go
+	// stale when a vertex moves to a lower bucket and are filtered on use.
+	private int[][] buckets;
+	private int[] bucketSize;
+
+	private DeltaStepping(CSRGraph graph, double delta, ForkJoinPool pool) {
+		if (!(delta > 0))
+			throw new IllegalArgumentException("delta must be positive");
+		this.graph = graph;
+		this.delta = delta;
+		this.pool = pool;
+	}
+
+	/**
+	 * Same output as BellmanFord.findShortestPath for non-negative weights, with
+	 * delta picked as max weight / average out-degree.
+	 */
+	public static double[] findShortestPath(CSRGraph graph, int src) {
+		return findShortestPath(graph, src, defaultDelta(graph), ForkJoinPool.commonPool());
+	}
+
+	public static double[] findShortestPath(CSRGraph graph, int src, double delta) {
+		return findShortestPath(graph, src, delta, ForkJoinPool.commonPool());
+	}
+
+	public static double[] findShortestPath(CSRGraph graph, int src, double delta, ForkJoinPool pool) {
+		return new DeltaStepping(graph, delta, pool).solve(src);
+	}
+
+	static double defaultDelta(CSRGraph graph) {
+		double maxWeight = 0;
+		for (int e = 0; e < graph.numEdges(); e++)
+			maxWeight = Math.max(maxWeight, graph.weight(e));
+		double avgDegree = Math.max(1, (double) graph.numEdges() / Math.max(1, graph.numVertices()));
+		return maxWeight > 0 ? maxWeight / avgDegree : 1;
+	}
+
+	private double[] solve(int src) {
+		int V = graph.numVertices();
+		double maxWeight = 0;
+		for (int e = 0; e < graph.numEdges(); e++) {
+			double w = graph.weight(e);
+			if (w < 0)
+				throw new IllegalArgumentException("Delta-stepping needs non-negative weights");
+			maxWeight = Math.max(maxWeight, w);
+		}
+
+		dist = new AtomicLongArray(V);
+		for (int v = 0; v < V; v++)
+			dist.set(v, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+		mark = new AtomicIntegerArray(V);
+		improved = new int[V];
+
+		// A relaxation reaches at most maxWeight/delta buckets ahead
+		long span = (long) Math.floor(maxWeight / delta) + 2;
+		if (span > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("delta is too small for the largest edge weight");
+		buckets = new int[(int) span][];
+		bucketSize = new int[(int) span];
+		for (int i = 0; i < span; i++)
+			buckets[i] = new int[4];
+
+		dist.set(src, Double.doubleToRawLongBits(0));
+		long current = 0;
+		addToBucket(0, src);
+		int pending = 1;
+
+		int[] settled = new int[16];
+		int settledCount = 0;
+		int[] settledMark = new int[V], frontierMark = new int[V];
+		int bucketRound = 0, frontierRound = 0;
+
+		while (pending > 0) {
+			// Find the next non-empty bucket
+			int slot = (int) (current % buckets.length);
+			while (bucketSize[slot] == 0) {
+				current++;
+				slot = (int) (current % buckets.length);
+			}
+
+			bucketRound++;
+			settledCount = 0;
+			while (bucketSize[slot] > 0) {
+				// Take the live entries of the bucket as this light phase's frontier
+				int[] frontier = buckets[slot];
+				int size = bucketSize[slot];
+				pending -= size;
+				buckets[slot] = new int[4];
+				bucketSize[slot] = 0;
+
+				int live = 0;
+				frontierRound++;
+				for (int i = 0; i < size; i++) {
+					int v = frontier[i];
+					if (bucketOf(v) == current && frontierMark[v] != frontierRound) {
+						frontierMark[v] = frontierRound;
+						frontier[live++] = v;
+						if (settledMark[v] != bucketRound) {
+							settledMark[v] = bucketRound;
+							if (settledCount == settled.length)
+								settled = Arrays.copyOf(settled, settledCount * 2);
+							settled[settledCount++] = v;
+						}
+					}
+				}
+				pending += runPhase(frontier, live, true);
+			}
+
+			// The bucket is final, its heavy edges can only reach later buckets
+			pending += runPhase(settled, settledCount, false);
+			current++;
+		}
+
+		double[] result = new double[V];
+		for (int v = 0; v < V; v++)
+			result[v] = Double.longBitsToDouble(dist.get(v));
+		return result;
+	}
+
+	// Relaxes the light or heavy edges of vertices[0, count) in parallel and files
+	// every improved vertex into its bucket. Returns the number of entries added.
+	private int runPhase(int[] vertices, int count, boolean light) {
+		if (count == 0)
+			return 0;
+		phase++;
+		improvedCount.set(0);
+		if (count <= GRAIN)
+			relax(vertices, 0, count, light);
+		else
+			pool.invoke(new RelaxTask(vertices, 0, count, light));
+
+		int added = improvedCount.get();
+		for (int i = 0; i < added; i++) {
+			int v = improved[i];
+			addToBucket(bucketOf(v), v);
+		}
+		return added;
+	}
+
+	private final class RelaxTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] vertices;
+		private final int lo, hi;
+		private final boolean light;
+
+		RelaxTask(int[] vertices, int lo, int hi, boolean light) {
+			this.vertices = vertices;
+			this.lo = lo;
+			this.hi = hi;
+			this.light = light;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= GRAIN) {
+				relax(vertices, lo, hi, light);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new RelaxTask(vertices, lo, mid, light), new RelaxTask(vertices, mid, hi, light));
+		}
+	}
+
+	private void relax(int[] vertices, int lo, int hi, boolean light) {
+		int[] offsets = graph.offsets, targets = graph.targets;
+		int[] local = new int[Math.min(64, hi - lo + 16)];
+		int localCount = 0;
+		for (int i = lo; i < hi; i++) {
+			int u = vertices[i];
+			double d = Double.longBitsToDouble(dist.get(u));
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				double w = graph.weight(e);
+				if ((w <= delta) != light)
+					continue;
+				int v = targets[e];
+				if (relaxTo(v, d + w) && queueOnce(v)) {
+					if (localCount == local.length) {
+						flush(local, localCount);
+						localCount = 0;
+					}
+					local[localCount++] = v;
+				}
+			}
+		}
+		flush(local, localCount);
+	}
+
+	// Atomic dist[v] = min(dist[v], nd), returns true if dist[v] was lowered
+	private boolean relaxTo(int v, double nd) {
+		long bits = Double.doubleToRawLongBits(nd);
+		while (true) {
+			long old = dist.get(v);
+			if (bits >= old)
+				return false;
+			if (dist.compareAndSet(v, old, bits))
+				return true;
+		}
+	}
+
+	// True for the first caller in this phase
+	private boolean queueOnce(int v) {
+		while (true) {
+			int m = mark.get(v);
+			if (m == phase)
+				return false;
+			if (mark.compareAndSet(v, m, phase))
+				return true;
+		}
+	}
+
+	private void flush(int[] local, int count) {
+		if (count > 0)
+			System.arraycopy(local, 0, improved, improvedCount.getAndAdd(count), count);
+	}
+
+	private long bucketOf(int v) {
+		return (long) (Double.longBitsToDouble(dist.get(v)) / delta);
+	}
+
+	private void addToBucket(long bucket, int v) {
+		int slot = (int) (bucket % buckets.length);
+		if (bucketSize[slot] == buckets[slot].length)
+			buckets[slot] = Arrays.copyOf(buckets[slot], bucketSize[slot] * 2);
+		buckets[slot][bucketSize[slot]++] = v;
+	}
+
+	public static void main(String[] args) {
+		int V = 9, start = 0;
+		CSRGraph graph = new CSRGraph.Builder(V).addEdge(0, 1, 1).addEdge(1, 2, 1).addEdge(2, 4, 1).addEdge(4, 3, 3)
+				.addEdge(3, 2, 1).addEdge(1, 5, 4).addEdge(1, 6, 4).addEdge(5, 6, 5).addEdge(6, 7, 4).addEdge(5, 7, 3)
+				.build();
+
+		double[] dist = DeltaStepping.findShortestPath(graph, start, 2);
+
+		for (int i = 0; i < V; i++)
+			System.out.printf("The cost to get from node %d to %d is %.2f\n", start, i, dist[i]);
+
+		// Output:
+		// The cost to get from node 0 to 0 is 0.00
+		// The cost to get from node 0 to 1 is 1.00
+		// The cost to get from node 0 to 2 is 2.00
+		// The cost to get from node 0 to 3 is 6.00
+		// The cost to get from node 0 to 4 is 3.00
+		// The cost to get from node 0 to 5 is 5.00
+		// The cost to get from node 0 to 6 is 5.00
+		// The cost to get from node 0 to 7 is 8.00
+		// The cost to get from node 0 to 8 is Infinity
+	}
+}
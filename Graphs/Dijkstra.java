@@ -2,7 +2,6 @@ package Graphs;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.PriorityQueue;
 
 class Node {
 	int value;
@@ -17,43 +16,95 @@ class Node {
 public class Dijkstra {
 
 	List<List<Node>> adjList;
+	DijkstraQueryEngine engine;
+
+	// Packed form of adjList with the vertex and edge counts it was built
+	// from, reused until either count changes
+	private DijkstraQueryEngine listEngine;
+	private int listEngineSize;
+	private long listEngineEdges;
 
 	Dijkstra() {
 		this.adjList = new ArrayList<>();
 	}
 
-	PriorityQueue<Node> pq = new PriorityQueue<>((n1, n2) -> (n1.weight - n2.weight));
+	Dijkstra(CSRGraph graph) {
+		this.engine = new DijkstraQueryEngine(graph);
+	}
 
-	public int getShortestPath(int source, int dest) {
-		int[] dist = new int[adjList.size() + 1];
-		for (int i = 0; i < adjList.size() + 1; i++) {
-			dist[i] = Integer.MAX_VALUE;
-		}
-		pq.add(new Node(source, 0));
-		dist[source] = 0;
-		while (!pq.isEmpty()) {
-			Node n = pq.poll(); // get the node with least weight
-			for (Node neighbour : adjList.get(n.value)) {
-				if (dist[neighbour.value] > (dist[n.value] + neighbour.weight)) {
-					dist[neighbour.value] = dist[n.value] + neighbour.weight;
-					pq.offer(new Node(neighbour.value, dist[neighbour.value]));
-				}
-			}
+	// The heuristic is only consulted by Mode.A_STAR queries
+	Dijkstra(CSRGraph graph, DijkstraQueryEngine.Heuristic heuristic) {
+		this.engine = new DijkstraQueryEngine(graph, heuristic);
+	}
+
+	// 4-ary heaps do fewer levels per decrease-key than binary heaps while a
+	// node's children still share a cache line
+	static final int HEAP_DEGREE = 4;
+
+	// The list-based form stays editable after construction, through addEdge()
+	// or adjList directly. It is packed into CSR form on the first query and
+	// the engine is reused while the vertex and edge counts are unchanged, so
+	// edges added to adjList later are always seen. Checking costs O(V) per
+	// query, far less than repacking.
+	DijkstraQueryEngine engine() {
+		if (engine != null)
+			return engine;
+		long edges = 0;
+		for (List<Node> neighbours : adjList)
+			edges += neighbours.size();
+		if (listEngine == null || listEngineSize != adjList.size() || listEngineEdges != edges) {
+			listEngine = new DijkstraQueryEngine(toCSRGraph(adjList));
+			listEngineSize = adjList.size();
+			listEngineEdges = edges;
 		}
-		return dist[dest] == Integer.MAX_VALUE ? -1 : dist[dest];
+		return listEngine;
+	}
+
+	/**
+	 * Drops the packed copy of adjList. Only needed after an edit that keeps
+	 * the edge count, such as changing a Node's weight or replacing an edge.
+	 */
+	void invalidate() {
+		listEngine = null;
+	}
+
+	// Adds the edge from -> to to the list-based form, adding vertices as needed
+	void addEdge(int from, int to, int weight) {
+		while (adjList.size() <= Math.max(from, to))
+			adjList.add(new ArrayList<>());
+		adjList.get(from).add(new Node(to, weight));
+		invalidate();
+	}
+
+	static CSRGraph toCSRGraph(List<List<Node>> adjList) {
+		CSRGraph.Builder builder = new CSRGraph.Builder(adjList.size());
+		for (int v = 0; v < adjList.size(); v++)
+			for (Node neighbour : adjList.get(v))
+				builder.addEdge(v, neighbour.value, neighbour.weight);
+		return builder.build();
+	}
+
+	// Thread-safe when built over a CSRGraph, see DijkstraQueryEngine
+	public int getShortestPath(int source, int dest) {
+		return getShortestPath(source, dest, DijkstraQueryEngine.Mode.DIJKSTRA);
+	}
+
+	public int getShortestPath(int source, int dest, DijkstraQueryEngine.Mode mode) {
+		double dist = engine().shortestPath(source, dest, mode);
+		return dist == Double.POSITIVE_INFINITY ? -1 : (int) dist;
 	}
 
 	public static void main(String[] args) {
 		Dijkstra obj = new Dijkstra();
-		// create 4 nodes
-		for (int i = 0; i < 4; i++)
-			obj.adjList.add(new ArrayList<>());
-		obj.adjList.get(0).add(new Node(1, 1));
-		obj.adjList.get(0).add(new Node(2, 4));
-		obj.adjList.get(0).add(new Node(3, 6));
-		obj.adjList.get(1).add(new Node(3, 2));
-		obj.adjList.get(1).add(new Node(2, 1));
-		obj.adjList.get(2).add(new Node(3, 5));
+		obj.addEdge(0, 1, 1);
+		obj.addEdge(0, 2, 4);
+		obj.addEdge(0, 3, 6);
+		obj.addEdge(1, 3, 2);
+		obj.addEdge(1, 2, 1);
+		obj.addEdge(2, 3, 5);
+		System.out.println(obj.getShortestPath(0, 3));
+		System.out.println(obj.getShortestPath(0, 2)); // reuses the packed graph
+		obj.adjList.get(0).add(new Node(3, 1)); // direct edits are picked up too
 		System.out.println(obj.getShortestPath(0, 3));
 	}
 
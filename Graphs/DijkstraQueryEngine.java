@@ -0,0 +1,366 @@
+/**
+ * A reentrant point-to-point shortest path engine over an immutable
+ * GraphView, either a heap CSRGraph or a MappedCSRGraph queried in place.
+ *
+ * The engine itself holds no query state, so one instance can serve any
+ * number of threads. Each thread gets its own Workspace holding a
+ * generation-stamped distance array and a heap: a distance is only valid if
+ * its stamp matches the current generation, so starting a new query costs
+ * O(touched) rather than O(V).
+ *
+ * Besides plain Dijkstra, point-to-point queries can run as a bidirectional
+ * search (forward from source and backward from dest until the frontiers
+ * meet) or as A* guided by an admissible Heuristic. All modes return the same
+ * distances; they differ in how many vertices get settled. The backward search
+ * needs the reverse graph: a CSRGraph is transposed on first use, any other
+ * view must be given its reverse up front.
+ *
+ * Time Complexity : O((V+E) log V) per query in the worst case, usually far
+ * less since the search stops once dest is settled.
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import Trees.IndexedDHeap;
+
+public class DijkstraQueryEngine {
+
+	// Pairs handled by one fork-join leaf task
+	private static final int BATCH_GRAIN = 64;
+
+	public enum Mode {
+		DIJKSTRA, BIDIRECTIONAL, A_STAR
+	}
+
+	/**
+	 * A lower bound on the distance from v to dest. It must never overestimate,
+	 * otherwise A* may return a longer path than the shortest one.
+	 */
+	public interface Heuristic {
+		double estimate(int v, int dest);
+
+		// Straight-line distance, admissible when no edge is shorter than the
+		// distance between its endpoints
+		static Heuristic euclidean(double[] x, double[] y) {
+			return (v, dest) -> Math.hypot(x[v] - x[dest], y[v] - y[dest]);
+		}
+	}
+
+	private final GraphView graph;
+	private final Heuristic heuristic;
+	private final ThreadLocal<Workspace> workspaces;
+	private volatile GraphView reverse; // given, or built on the first bidirectional query
+
+	public DijkstraQueryEngine(GraphView graph) {
+		this(graph, null);
+	}
+
+	public DijkstraQueryEngine(GraphView graph, Heuristic heuristic) {
+		this(graph, null, heuristic);
+	}
+
+	/**
+	 * @param reverse the transpose of graph for bidirectional queries, null to
+	 *                transpose a CSRGraph on first use
+	 */
+	public DijkstraQueryEngine(GraphView graph, GraphView reverse, Heuristic heuristic) {
+		if (graph == null)
+			throw new IllegalArgumentException("Graph cannot be null");
+		if (reverse != null && (reverse.numVertices() != graph.numVertices() || reverse.edgeCount() != graph.edgeCount()))
+			throw new IllegalArgumentException("Reverse graph does not match the graph");
+		this.graph = graph;
+		this.reverse = reverse;
+		this.heuristic = heuristic;
+		this.workspaces = ThreadLocal.withInitial(() -> new Workspace(graph.numVertices()));
+	}
+
+	public GraphView graph() {
+		return graph;
+	}
+
+	private GraphView reverse() {
+		GraphView r = reverse;
+		if (r == null) {
+			if (!(graph instanceof CSRGraph))
+				throw new IllegalStateException("Bidirectional queries on this graph need its reverse graph");
+			synchronized (this) {
+				if ((r = reverse) == null)
+					reverse = r = ((CSRGraph) graph).transpose();
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Per-thread query state, reused from one query to the next.
+	 */
+	static final class Workspace {
+		final double[] dist;
+		final int[] stamp;
+		final IndexedDHeap heap;
+		int generation, settled;
+
+		// Backward side of bidirectional queries, allocated on first use
+		double[] distB;
+		int[] stampB;
+		IndexedDHeap heapB;
+
+		Workspace(int V) {
+			dist = new double[V];
+			stamp = new int[V];
+			heap = new IndexedDHeap(Dijkstra.HEAP_DEGREE, V);
+		}
+
+		// Invalidates every distance of the previous query in O(1)
+		void reset() {
+			heap.clear();
+			if (heapB != null)
+				heapB.clear();
+			settled = 0;
+			if (++generation == 0) { // stamps wrapped around, start over
+				Arrays.fill(stamp, 0);
+				if (stampB != null)
+					Arrays.fill(stampB, 0);
+				generation = 1;
+			}
+		}
+
+		void ensureBackward() {
+			if (heapB == null) {
+				distB = new double[dist.length];
+				stampB = new int[dist.length];
+				heapB = new IndexedDHeap(Dijkstra.HEAP_DEGREE, dist.length);
+			}
+		}
+
+		double dist(int v) {
+			return stamp[v] == generation ? dist[v] : Double.POSITIVE_INFINITY;
+		}
+
+		void setDist(int v, double d) {
+			dist[v] = d;
+			stamp[v] = generation;
+		}
+
+		double distB(int v) {
+			return stampB[v] == generation ? distB[v] : Double.POSITIVE_INFINITY;
+		}
+
+		void setDistB(int v, double d) {
+			distB[v] = d;
+			stampB[v] = generation;
+		}
+	}
+
+	Workspace workspace() {
+		return workspaces.get();
+	}
+
+	/**
+	 * Number of vertices settled by the last query of the calling thread.
+	 */
+	public int lastSettledCount() {
+		return workspace().settled;
+	}
+
+	/**
+	 * Returns the length of the shortest path from source to dest, or positive
+	 * infinity if dest cannot be reached. Safe to call from many threads at once.
+	 */
+	public double shortestPath(int source, int dest) {
+		return shortestPath(source, dest, Mode.DIJKSTRA);
+	}
+
+	public double shortestPath(int source, int dest, Mode mode) {
+		checkVertex(source);
+		checkVertex(dest);
+		Workspace ws = workspace();
+		ws.reset();
+
+		switch (mode) {
+		case BIDIRECTIONAL:
+			return bidirectional(ws, source, dest);
+		case A_STAR:
+			if (heuristic == null)
+				throw new IllegalStateException("A* needs an engine built with a Heuristic");
+			return aStar(ws, source, dest);
+		default:
+			return aStar(ws, source, dest, (v, t) -> 0);
+		}
+	}
+
+	private double aStar(Workspace ws, int source, int dest) {
+		return aStar(ws, source, dest, heuristic);
+	}
+
+	// Heap keys are dist + estimate. A vertex that is improved after leaving the
+	// heap is simply queued again, so an admissible but inconsistent heuristic
+	// still gives exact answers.
+	private double aStar(Workspace ws, int source, int dest, Heuristic h) {
+		IndexedDHeap pq = ws.heap;
+		ws.setDist(source, 0);
+		pq.insert(source, h.estimate(source, dest));
+		while (!pq.isEmpty()) {
+			int at = pq.pollMinIndex();
+			ws.settled++;
+			if (at == dest)
+				return ws.dist(dest);
+			double d = ws.dist(at);
+			for (long e = graph.begin(at), end = graph.end(at); e < end; e++) {
+				int to = graph.target(e);
+				double nd = d + graph.weight(e);
+				if (nd < ws.dist(to)) {
+					ws.setDist(to, nd);
+					pq.insertOrDecrease(to, nd + h.estimate(to, dest));
+				}
+			}
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	// Grows a forward search from source and a backward search from dest, always
+	// expanding the smaller frontier. best holds the shortest source-dest path
+	// seen through any edge joining the two; once the two heap minima add up to
+	// at least best, no shorter path can exist.
+	private double bidirectional(Workspace ws, int source, int dest) {
+		if (source == dest)
+			return 0;
+		ws.ensureBackward();
+		GraphView rev = reverse();
+		IndexedDHeap fwd = ws.heap, bwd = ws.heapB;
+		ws.setDist(source, 0);
+		ws.setDistB(dest, 0);
+		fwd.insert(source, 0);
+		bwd.insert(dest, 0);
+
+		double best = Double.POSITIVE_INFINITY;
+		while (!fwd.isEmpty() && !bwd.isEmpty()) {
+			if (fwd.peekMinKey() + bwd.peekMinKey() >= best)
+				break;
+			ws.settled++;
+			if (fwd.size() <= bwd.size()) {
+				int at = fwd.pollMinIndex();
+				double d = ws.dist(at);
+				for (long e = graph.begin(at), end = graph.end(at); e < end; e++) {
+					int to = graph.target(e);
+					double nd = d + graph.weight(e);
+					if (nd < ws.dist(to)) {
+						ws.setDist(to, nd);
+						fwd.insertOrDecrease(to, nd);
+					}
+					best = Math.min(best, nd + ws.distB(to));
+				}
+			} else {
+				int at = bwd.pollMinIndex();
+				double d = ws.distB(at);
+				for (long e = rev.begin(at), end = rev.end(at); e < end; e++) {
+					int to = rev.target(e);
+					double nd = d + rev.weight(e);
+					if (nd < ws.distB(to)) {
+						ws.setDistB(to, nd);
+						bwd.insertOrDecrease(to, nd);
+					}
+					best = Math.min(best, nd + ws.dist(to));
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Full single source run, returns the distance to every vertex.
+	 */
+	public double[] distancesFrom(int source) {
+		double[] dist = new double[graph.numVertices()];
+		distancesFrom(source, dist);
+		return dist;
+	}
+
+	// Same as above, writing into a caller supplied array of length V
+	public void distancesFrom(int source, double[] dist) {
+		checkVertex(source);
+		Workspace ws = workspace();
+		ws.reset();
+		aStar(ws, source, -1, (v, t) -> 0);
+		for (int v = 0; v < dist.length; v++)
+			dist[v] = ws.dist(v);
+	}
+
+	/**
+	 * Answers the (sources[i], dests[i]) queries on the common fork-join pool.
+	 */
+	public double[] shortestPaths(int[] sources, int[] dests) {
+		return shortestPaths(sources, dests, ForkJoinPool.commonPool());
+	}
+
+	public double[] shortestPaths(int[] sources, int[] dests, ForkJoinPool pool) {
+		if (sources.length != dests.length)
+			throw new IllegalArgumentException("sources and dests must have the same length");
+		double[] result = new double[sources.length];
+		pool.invoke(new BatchTask(sources, dests, result, 0, sources.length));
+		return result;
+	}
+
+	private final class BatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] sources, dests;
+		private final double[] result;
+		private final int lo, hi;
+
+		BatchTask(int[] sources, int[] dests, double[] result, int lo, int hi) {
+			this.sources = sources;
+			this.dests = dests;
+			this.result = result;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= BATCH_GRAIN) {
+				for (int i = lo; i < hi; i++)
+					result[i] = shortestPath(sources[i], dests[i]);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new BatchTask(sources, dests, result, lo, mid), new BatchTask(sources, dests, result, mid, hi));
+		}
+	}
+
+	private void checkVertex(int v) {
+		if (v < 0 || v >= graph.numVertices())
+			throw new IllegalArgumentException("Vertex " + v + " is out of range");
+	}
+
+	public static void main(String[] args) {
+		CSRGraph graph = new CSRGraph.Builder(4).addEdge(0, 1, 1).addEdge(0, 2, 4).addEdge(0, 3, 6).addEdge(1, 3, 2)
+				.addEdge(1, 2, 1).addEdge(2, 3, 5).build();
+		DijkstraQueryEngine engine = new DijkstraQueryEngine(graph);
+
+		int[] sources = { 0, 0, 1, 3 };
+		int[] dests = { 3, 2, 3, 0 };
+		double[] dist = engine.shortestPaths(sources, dests);
+		for (int i = 0; i < dist.length; i++)
+			System.out.printf("%d -> %d : %.1f\n", sources[i], dests[i], dist[i]);
+
+		// Output:
+		// 0 -> 3 : 3.0
+		// 0 -> 2 : 2.0
+		// 1 -> 3 : 2.0
+		// 3 -> 0 : Infinity
+
+		DijkstraQueryEngine alt = new DijkstraQueryEngine(graph, LandmarkHeuristic.farthest(graph, 2));
+		for (Mode mode : Mode.values())
+			System.out.printf("%s 0 -> 3 : %.1f\n", mode, alt.shortestPath(0, 3, mode));
+
+		// Output:
+		// DIJKSTRA 0 -> 3 : 3.0
+		// BIDIRECTIONAL 0 -> 3 : 3.0
+		// A_STAR 0 -> 3 : 3.0
+	}
+}
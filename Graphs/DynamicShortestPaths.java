@@ -0,0 +1,358 @@
+/**
+ * Single source shortest paths from a set of tracked sources, kept up to date
+ * while edge weights change (in the style of Ramalingam-Reps).
+ *
+ * For every source the structure keeps the distance array and the shortest
+ * path tree, with explicit child lists. After a batch of weight changes:
+ * - Increases only matter on tree edges. Their subtrees are cut off, every
+ *   cut vertex gets its best distance over the in-edges from outside the cut,
+ *   and a Dijkstra restricted to the cut settles the rest.
+ * - Decreases, and the out-edges of the re-settled vertices, are relaxed and
+ *   improvements are propagated with a Dijkstra that only visits vertices
+ *   whose distance drops.
+ * Vertices whose distance cannot change are never touched, so the cost of an
+ * update depends on the size of the affected region, not on the graph.
+ *
+ * Weights must be non-negative. The structure owns a copy of the weights;
+ * the CSRGraph passed in is not modified.
+ *
+ * Time Complexity : O(A log A) per update, A being the affected vertices and
+ * their edges ; O(S (E + V log V)) to build for S sources
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+
+import Trees.IndexedDHeap;
+
+public class DynamicShortestPaths {
+
+	private static final double INF = Double.POSITIVE_INFINITY;
+
+	private final int V;
+	private final int[] offsets, targets, tail;
+	private final double[] weights;
+
+	// In-edges of every vertex, as forward edge ids
+	private final int[] reverseOffsets, reverseEdges;
+
+	private final Tree[] trees;
+
+	// Shared scratch space, so updates do not allocate per call
+	private final IndexedDHeap heap;
+	private final int[] mark, cut, seeds;
+	private int stamp, affected;
+
+	// Shortest path tree of one source. parentEdge[v] is the tree edge into v,
+	// -1 for the source and unreachable vertices.
+	private final class Tree {
+		final int source;
+		final double[] dist = new double[V];
+		final int[] parentEdge = new int[V], firstChild = new int[V], nextSibling = new int[V],
+				prevSibling = new int[V];
+
+		Tree(int source) {
+			this.source = source;
+			Arrays.fill(dist, INF);
+			Arrays.fill(parentEdge, -1);
+			Arrays.fill(firstChild, -1);
+			dist[source] = 0;
+		}
+
+		void link(int v, int e) {
+			int p = tail[e];
+			parentEdge[v] = e;
+			prevSibling[v] = -1;
+			nextSibling[v] = firstChild[p];
+			if (firstChild[p] >= 0)
+				prevSibling[firstChild[p]] = v;
+			firstChild[p] = v;
+		}
+
+		void unlink(int v) {
+			int e = parentEdge[v];
+			if (e < 0)
+				return;
+			if (prevSibling[v] >= 0)
+				nextSibling[prevSibling[v]] = nextSibling[v];
+			else
+				firstChild[tail[e]] = nextSibling[v];
+			if (nextSibling[v] >= 0)
+				prevSibling[nextSibling[v]] = prevSibling[v];
+			parentEdge[v] = -1;
+		}
+	}
+
+	public DynamicShortestPaths(CSRGraph graph, int... sources) {
+		if (graph == null || sources == null)
+			throw new IllegalArgumentException("Graph and sources cannot be null");
+		V = graph.numVertices();
+		int E = graph.numEdges();
+		offsets = graph.offsets;
+		targets = graph.targets;
+		weights = new double[E];
+		tail = new int[E];
+		for (int u = 0; u < V; u++) {
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				weights[e] = graph.weight(e);
+				tail[e] = u;
+				if (weights[e] < 0)
+					throw new IllegalArgumentException("Edge " + e + " has a negative weight");
+			}
+		}
+		reverseOffsets = new int[V + 1];
+		for (int e = 0; e < E; e++)
+			reverseOffsets[targets[e] + 1]++;
+		for (int v = 0; v < V; v++)
+			reverseOffsets[v + 1] += reverseOffsets[v];
+		reverseEdges = new int[E];
+		int[] fill = Arrays.copyOf(reverseOffsets, V);
+		for (int e = 0; e < E; e++)
+			reverseEdges[fill[targets[e]]++] = e;
+
+		heap = new IndexedDHeap(Dijkstra.HEAP_DEGREE, V);
+		mark = new int[V];
+		cut = new int[V];
+		seeds = new int[V];
+		trees = new Tree[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			if (sources[i] < 0 || sources[i] >= V)
+				throw new IllegalArgumentException("Source " + sources[i] + " is out of range");
+			trees[i] = new Tree(sources[i]);
+			relaxFrom(trees[i], new int[] { sources[i] }, 1);
+		}
+	}
+
+	public int sourceCount() {
+		return trees.length;
+	}
+
+	// Vertex tracked as source number i
+	public int source(int i) {
+		return trees[i].source;
+	}
+
+	// Distance from source number i to v, positive infinity if unreachable
+	public double distance(int i, int v) {
+		return trees[i].dist[v];
+	}
+
+	public double[] distances(int i) {
+		return trees[i].dist.clone();
+	}
+
+	// Tree edge into v for source number i, -1 for the source and unreachable
+	// vertices
+	public int parentEdge(int i, int v) {
+		return trees[i].parentEdge[v];
+	}
+
+	public int parent(int i, int v) {
+		int e = trees[i].parentEdge[v];
+		return e < 0 ? -1 : tail[e];
+	}
+
+	/**
+	 * Vertices of the current shortest path from source number i to v, null if
+	 * v is unreachable.
+	 */
+	public int[] pathTo(int i, int v) {
+		Tree tree = trees[i];
+		if (tree.dist[v] == INF)
+			return null;
+		int length = 1;
+		for (int x = v; tree.parentEdge[x] >= 0; x = tail[tree.parentEdge[x]])
+			length++;
+		int[] path = new int[length];
+		for (int k = length - 1, x = v; k >= 0; k--) {
+			path[k] = x;
+			if (k > 0)
+				x = tail[tree.parentEdge[x]];
+		}
+		return path;
+	}
+
+	public double weight(int e) {
+		return weights[e];
+	}
+
+	// Index of the first edge u -> v, -1 if there is none
+	public int findEdge(int u, int v) {
+		for (int e = offsets[u]; e < offsets[u + 1]; e++)
+			if (targets[e] == v)
+				return e;
+		return -1;
+	}
+
+	/**
+	 * Vertices whose distance was recomputed or lowered by the last update,
+	 * summed over all sources.
+	 */
+	public int lastAffectedCount() {
+		return affected;
+	}
+
+	public void setWeight(int e, double weight) {
+		setWeights(new int[] { e }, new double[] { weight });
+	}
+
+	/**
+	 * Applies a batch of weight changes and repairs every tracked source once.
+	 * An edge listed twice gets its last weight.
+	 */
+	public void setWeights(int[] edges, double[] newWeights) {
+		if (edges.length != newWeights.length)
+			throw new IllegalArgumentException("Need one weight per edge");
+		for (int k = 0; k < edges.length; k++) {
+			if (edges[k] < 0 || edges[k] >= weights.length)
+				throw new IllegalArgumentException("Edge " + edges[k] + " does not exist");
+			if (!(newWeights[k] >= 0))
+				throw new IllegalArgumentException("Weight " + newWeights[k] + " must be non-negative");
+		}
+		double[] old = new double[edges.length];
+		for (int k = 0; k < edges.length; k++) {
+			old[k] = weights[edges[k]];
+			weights[edges[k]] = newWeights[k];
+		}
+		affected = 0;
+		for (Tree tree : trees)
+			repair(tree, edges, old);
+	}
+
+	private void repair(Tree tree, int[] edges, double[] old) {
+		// Cut off the subtrees under tree edges that got heavier
+		int cutSize = 0;
+		stamp++;
+		for (int k = 0; k < edges.length; k++) {
+			int e = edges[k], v = targets[e];
+			if (weights[e] > old[k] && tree.parentEdge[v] == e && mark[v] != stamp)
+				cutSize = collectSubtree(tree, v, cutSize);
+		}
+		for (int k = 0; k < cutSize; k++) {
+			int x = cut[k];
+			if (mark[tail[tree.parentEdge[x]]] != stamp)
+				tree.unlink(x); // subtree root, its parent stays
+		}
+		for (int k = 0; k < cutSize; k++) {
+			int x = cut[k];
+			tree.parentEdge[x] = -1;
+			tree.firstChild[x] = -1;
+			tree.dist[x] = INF;
+		}
+
+		// Best distance of every cut vertex through in-edges from outside the
+		// cut, then Dijkstra inside the cut
+		heap.clear();
+		for (int k = 0; k < cutSize; k++) {
+			int x = cut[k];
+			for (int r = reverseOffsets[x]; r < reverseOffsets[x + 1]; r++) {
+				int e = reverseEdges[r], y = tail[e];
+				if (mark[y] != stamp && tree.dist[y] + weights[e] < tree.dist[x]) {
+					tree.dist[x] = tree.dist[y] + weights[e];
+					tree.parentEdge[x] = e;
+				}
+			}
+			if (tree.dist[x] < INF)
+				heap.insert(x, tree.dist[x]);
+		}
+		while (!heap.isEmpty()) {
+			int x = heap.pollMinIndex();
+			mark[x] = 0; // settled
+			int e = tree.parentEdge[x];
+			tree.parentEdge[x] = -1;
+			tree.link(x, e);
+			for (int f = offsets[x]; f < offsets[x + 1]; f++) {
+				int z = targets[f];
+				double d = tree.dist[x] + weights[f];
+				if (mark[z] == stamp && d < tree.dist[z]) {
+					tree.dist[z] = d;
+					tree.parentEdge[z] = f;
+					heap.insertOrDecrease(z, d);
+				}
+			}
+		}
+		for (int k = 0; k < cutSize; k++)
+			mark[cut[k]] = 0; // unreachable now
+
+		// Relax the lighter edges and the out-edges of the re-settled vertices
+		int[] from = cutSize + edges.length <= seeds.length ? seeds : new int[cutSize + edges.length];
+		int seedCount = 0;
+		for (int k = 0; k < cutSize; k++)
+			if (tree.dist[cut[k]] < INF)
+				from[seedCount++] = cut[k];
+		for (int k = 0; k < edges.length; k++) {
+			int e = edges[k];
+			if (weights[e] < old[k] && tree.dist[tail[e]] + weights[e] < tree.dist[targets[e]])
+				from[seedCount++] = tail[e];
+		}
+		affected += cutSize;
+		relaxFrom(tree, from, seedCount);
+	}
+
+	// Appends the subtree of root to cut and marks it with the current stamp
+	private int collectSubtree(Tree tree, int root, int cutSize) {
+		int head = cutSize;
+		mark[root] = stamp;
+		cut[cutSize++] = root;
+		while (head < cutSize) {
+			int x = cut[head++];
+			for (int c = tree.firstChild[x]; c >= 0; c = tree.nextSibling[c]) {
+				if (mark[c] != stamp) {
+					mark[c] = stamp;
+					cut[cutSize++] = c;
+				}
+			}
+		}
+		return cutSize;
+	}
+
+	/**
+	 * Relaxes the out-edges of the seed vertices and runs Dijkstra over the
+	 * vertices whose distance dropped, re-hanging each one under its new
+	 * parent. Distances only ever decrease here.
+	 */
+	private void relaxFrom(Tree tree, int[] from, int count) {
+		heap.clear();
+		for (int k = 0; k < count; k++)
+			relax(tree, from[k]);
+		while (!heap.isEmpty()) {
+			affected++;
+			relax(tree, heap.pollMinIndex());
+		}
+	}
+
+	private void relax(Tree tree, int x) {
+		double dx = tree.dist[x];
+		for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+			int z = targets[e];
+			double d = dx + weights[e];
+			if (d < tree.dist[z]) {
+				tree.dist[z] = d;
+				tree.unlink(z);
+				tree.link(z, e);
+				heap.insertOrDecrease(z, d);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		CSRGraph graph = new CSRGraph.Builder(5).addEdge(0, 1, 4).addEdge(0, 2, 1).addEdge(2, 1, 2).addEdge(1, 3, 1)
+				.addEdge(2, 3, 5).addEdge(3, 4, 3).build();
+		DynamicShortestPaths paths = new DynamicShortestPaths(graph, 0);
+		System.out.println("Distances: " + Arrays.toString(paths.distances(0)));
+
+		paths.setWeight(paths.findEdge(2, 1), 6); // 2 -> 1 gets slower
+		System.out.println("After 2->1 = 6: " + Arrays.toString(paths.distances(0)) + ", path to 4 "
+				+ Arrays.toString(paths.pathTo(0, 4)));
+
+		paths.setWeight(paths.findEdge(2, 3), 1); // 2 -> 3 gets faster
+		System.out.println("After 2->3 = 1: " + Arrays.toString(paths.distances(0)) + ", path to 4 "
+				+ Arrays.toString(paths.pathTo(0, 4)));
+
+		// Output:
+		// Distances: [0.0, 3.0, 1.0, 4.0, 7.0]
+		// After 2->1 = 6: [0.0, 4.0, 1.0, 5.0, 8.0], path to 4 [0, 1, 3, 4]
+		// After 2->3 = 1: [0.0, 4.0, 1.0, 2.0, 5.0], path to 4 [0, 2, 3, 4]
+	}
+}
@@ -0,0 +1,204 @@
+/**
+ * Topological order of a DAG that keeps gaining edges, maintained with the
+ * Pearce-Kelly algorithm instead of a full resort per insertion.
+ *
+ * Every vertex owns one position of the order. An edge x -> y that already
+ * agrees with the order (ord(x) < ord(y)) is simply stored. Otherwise only the
+ * affected region between ord(y) and ord(x) is searched: forward from y for
+ * vertices placed before x, and backward from x for vertices placed after y.
+ * If the forward search reaches x the edge would close a cycle and is
+ * rejected. If not, the two sets are moved into the positions they already
+ * hold, everything reaching x first and everything reachable from y after it,
+ * keeping their relative order. Vertices outside the region never move.
+ *
+ * Time Complexity : O(1) for ord and vertexAt ; addEdge is proportional to the
+ * edges of the affected region, plus sorting it
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+
+public class DynamicTopologicalOrder {
+
+	private final int V;
+	private final int[] ord, vertexAt;
+	private final int[][] out, in;
+	private final int[] outSize, inSize;
+
+	// Search state, reused between insertions. Every insertion takes two new
+	// positive marks, stamp - 1 for the forward search and stamp for the
+	// backward one, so no mark is ever reused until mark is cleared.
+	private final int[] mark, forward, backward;
+	private int stamp;
+
+	/**
+	 * Creates V vertices without edges, ordered by id.
+	 */
+	public DynamicTopologicalOrder(int V) {
+		if (V < 0)
+			throw new IllegalArgumentException("Number of vertices cannot be negative");
+		this.V = V;
+		ord = new int[V];
+		vertexAt = new int[V];
+		out = new int[V][];
+		in = new int[V][];
+		outSize = new int[V];
+		inSize = new int[V];
+		mark = new int[V];
+		forward = new int[V];
+		backward = new int[V];
+		for (int v = 0; v < V; v++)
+			ord[v] = vertexAt[v] = v;
+	}
+
+	/**
+	 * Starts from the Kahn order of an existing DAG.
+	 *
+	 * @throws IllegalArgumentException if the graph has a cycle
+	 */
+	public DynamicTopologicalOrder(CSRGraph graph) {
+		this(graph.numVertices());
+		TopologicalOrder.Levels levels = new TopologicalOrder(graph).getLevels();
+		if (!levels.isDAG())
+			throw new IllegalArgumentException("Graph has a cycle " + Arrays.toString(levels.cycle()));
+		int[] order = levels.order();
+		for (int i = 0; i < V; i++) {
+			vertexAt[i] = order[i];
+			ord[order[i]] = i;
+		}
+		for (int u = 0; u < V; u++)
+			for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++)
+				store(u, graph.targets[e]);
+	}
+
+	public int numVertices() {
+		return V;
+	}
+
+	// Position of v in the current order
+	public int ord(int v) {
+		return ord[v];
+	}
+
+	// Vertex at the given position of the current order
+	public int vertexAt(int position) {
+		return vertexAt[position];
+	}
+
+	// Copy of the current order, O(V)
+	public int[] order() {
+		return vertexAt.clone();
+	}
+
+	/**
+	 * Adds the edge from -> to unless it would create a cycle.
+	 *
+	 * @return false if the edge was rejected because it closes a cycle
+	 */
+	public boolean addEdge(int from, int to) {
+		if (from < 0 || from >= V || to < 0 || to >= V)
+			throw new IllegalArgumentException("Edge " + from + "->" + to + " is out of range");
+		if (from == to)
+			return false;
+		int lb = ord[to], ub = ord[from];
+		if (lb < ub) {
+			if (stamp > Integer.MAX_VALUE - 2) {
+				Arrays.fill(mark, 0);
+				stamp = 0;
+			}
+			stamp += 2;
+			int f = search(to, ub, true, forward);
+			if (f < 0)
+				return false;
+			int b = search(from, lb, false, backward);
+			reorder(f, b);
+		}
+		store(from, to);
+		return true;
+	}
+
+	private void store(int from, int to) {
+		out[from] = append(out[from], outSize[from]++, to);
+		in[to] = append(in[to], inSize[to]++, from);
+	}
+
+	private static int[] append(int[] list, int index, int value) {
+		if (list == null)
+			list = new int[2];
+		else if (index == list.length)
+			list = Arrays.copyOf(list, index * 2);
+		list[index] = value;
+		return list;
+	}
+
+	/**
+	 * Collects into found the vertices reachable from start, forward along
+	 * out-edges to positions below bound, or backward along in-edges to
+	 * positions above bound. The forward search returns -1 as soon as it sees
+	 * the vertex at position bound, which means the new edge closes a cycle.
+	 *
+	 * @return number of vertices found
+	 */
+	private int search(int start, int bound, boolean isForward, int[] found) {
+		int visited = isForward ? stamp - 1 : stamp;
+		int count = 0, next = 0;
+		mark[start] = visited;
+		found[count++] = start;
+		while (next < count) {
+			int v = found[next++];
+			int[] list = isForward ? out[v] : in[v];
+			int listSize = isForward ? outSize[v] : inSize[v];
+			for (int i = 0; i < listSize; i++) {
+				int w = list[i];
+				if (isForward && ord[w] == bound)
+					return -1;
+				if (mark[w] == visited || (isForward ? ord[w] > bound : ord[w] < bound))
+					continue;
+				mark[w] = visited;
+				found[count++] = w;
+			}
+		}
+		return count;
+	}
+
+	// Gives the backward set the lowest and the forward set the highest of the
+	// positions the two sets hold
+	private void reorder(int f, int b) {
+		int[] positions = new int[f + b];
+		for (int i = 0; i < b; i++)
+			positions[i] = ord[backward[i]];
+		for (int i = 0; i < f; i++)
+			positions[b + i] = ord[forward[i]];
+		// Each set keeps its relative order: sort by position, then map back
+		Arrays.sort(positions, 0, b);
+		Arrays.sort(positions, b, b + f);
+		for (int i = 0; i < b; i++)
+			backward[i] = vertexAt[positions[i]];
+		for (int i = 0; i < f; i++)
+			forward[i] = vertexAt[positions[b + i]];
+		Arrays.sort(positions);
+		for (int i = 0; i < b; i++)
+			place(backward[i], positions[i]);
+		for (int i = 0; i < f; i++)
+			place(forward[i], positions[b + i]);
+	}
+
+	private void place(int v, int position) {
+		ord[v] = position;
+		vertexAt[position] = v;
+	}
+
+	public static void main(String[] args) {
+		DynamicTopologicalOrder order = new DynamicTopologicalOrder(6);
+		int edges[][] = { { 5, 2 }, { 5, 0 }, { 4, 0 }, { 4, 1 }, { 2, 3 }, { 3, 1 }, { 1, 5 } };
+		for (int[] e : edges)
+			if (!order.addEdge(e[0], e[1]))
+				System.out.println("Rejected " + e[0] + " -> " + e[1]);
+		System.out.println(Arrays.toString(order.order()));
+
+		// Output:
+		// Rejected 1 -> 5
+		// [5, 4, 2, 3, 0, 1]
+	}
+}
@@ -0,0 +1,361 @@
+/**
+ * Bulk loader for whitespace separated edge list files, one "from to [weight]"
+ * per line, straight into a CSRGraph.
+ *
+ * The file is cut into byte ranges that are parsed in parallel on a fork-join
+ * pool. Every range is memory-mapped and scanned byte by byte, numbers are
+ * built directly from the digits (no Strings), and each range fills its own
+ * primitive from/to/weight buffers. A range owns every line that starts
+ * inside it, so it skips the partial line at its start and reads past its
+ * end to finish its last line. The buffers are then merged in file order with
+ * one counting sort by source vertex, giving the same graph as adding the
+ * edges one by one to a CSRGraph.Builder.
+ *
+ * Blank lines and lines starting with '#' or '%' are skipped. A line without
+ * weight gets weight 1; the graph is unweighted if no line has one.
+ *
+ * Time Complexity : O(file size / cores + V + E)
+ */
+
+package Graphs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class EdgeListReader {
+
+	// Bytes per range; the last line of a range may run up to LINE_SLACK past it
+	private static final long MIN_RANGE = 1 << 20, MAX_RANGE = 1 << 28;
+	private static final int LINE_SLACK = 1 << 16;
+
+	// Exact powers of ten; mantissa * or / these is correctly rounded
+	private static final double[] POW10 = new double[23];
+	static {
+		POW10[0] = 1;
+		for (int i = 1; i < POW10.length; i++)
+			POW10[i] = POW10[i - 1] * 10;
+	}
+
+	/**
+	 * Reads the file using the common pool, with V one more than the largest
+	 * vertex id.
+	 */
+	public static CSRGraph read(Path file) throws IOException {
+		return read(file, -1, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param V number of vertices, or -1 for one more than the largest id
+	 * @throws IllegalArgumentException if a line is malformed or an id is out of
+	 *                                  range
+	 */
+	public static CSRGraph read(Path file, int V, ForkJoinPool pool) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long rangeBytes = Math.min(MAX_RANGE, Math.max(MIN_RANGE, size / (4L * pool.getParallelism()) + 1));
+			Part[] parts = new Part[(int) Math.max(1, (size + rangeBytes - 1) / rangeBytes)];
+			for (int i = 0; i < parts.length; i++) {
+				long start = i * rangeBytes;
+				parts[i] = new Part(start, Math.min(size, start + rangeBytes));
+			}
+			try {
+				pool.invoke(new ParseTask(channel, size, parts, 0, parts.length));
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			return merge(parts, V);
+		}
+	}
+
+	// Edges parsed from one byte range [start, end)
+	private static final class Part {
+		final long start, end;
+		int E, maxId = -1;
+		int[] from = new int[16], to = new int[16];
+		double[] cost; // null until a weighted line shows up
+
+		Part(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		void add(int u, int v, double w, boolean weighted) {
+			if (E == from.length) {
+				from = Arrays.copyOf(from, E * 2);
+				to = Arrays.copyOf(to, E * 2);
+				if (cost != null)
+					cost = Arrays.copyOf(cost, E * 2);
+			}
+			if (weighted && cost == null) {
+				cost = new double[from.length];
+				Arrays.fill(cost, 0, E, 1);
+			}
+			from[E] = u;
+			to[E] = v;
+			if (cost != null)
+				cost[E] = weighted ? w : 1;
+			E++;
+			maxId = Math.max(maxId, Math.max(u, v));
+		}
+	}
+
+	private static final class ParseTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel channel;
+		private final long size;
+		private final Part[] parts;
+		private final int lo, hi;
+
+		ParseTask(FileChannel channel, long size, Part[] parts, int lo, int hi) {
+			this.channel = channel;
+			this.size = size;
+			this.parts = parts;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo == 1) {
+				try {
+					parse(channel, size, parts[lo]);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new ParseTask(channel, size, parts, lo, mid), new ParseTask(channel, size, parts, mid, hi));
+		}
+	}
+
+	private static void parse(FileChannel channel, long size, Part part) throws IOException {
+		// Start one byte early to see whether the range begins a line
+		long base = Math.max(0, part.start - 1);
+		long limit = Math.min(size, part.end + LINE_SLACK);
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, limit - base);
+		int n = (int) (limit - base), end = (int) (part.end - base);
+		boolean atEof = limit == size;
+
+		int pos = 0;
+		if (part.start > 0) {
+			while (pos < n && buffer.get(pos) != '\n')
+				pos++;
+			pos++; // first byte after the newline
+		}
+
+		while (pos < end) {
+			int lineStart = pos;
+			pos = skipBlanks(buffer, pos, n);
+			if (pos == n || buffer.get(pos) == '\n') {
+				pos++;
+				continue;
+			}
+			byte c = buffer.get(pos);
+			if (c == '#' || c == '%') {
+				while (pos < n && buffer.get(pos) != '\n')
+					pos++;
+				pos++;
+				continue;
+			}
+
+			// from and to
+			long u = 0, v = 0;
+			int digits = pos;
+			while (pos < n && isDigit(buffer.get(pos)))
+				u = Math.min(u * 10 + (buffer.get(pos++) - '0'), Integer.MAX_VALUE + 1L);
+			if (pos == digits || pos == n || !isBlank(buffer.get(pos)))
+				throw malformed(base, buffer, lineStart, n);
+			pos = skipBlanks(buffer, pos, n);
+			digits = pos;
+			while (pos < n && isDigit(buffer.get(pos)))
+				v = Math.min(v * 10 + (buffer.get(pos++) - '0'), Integer.MAX_VALUE + 1L);
+			if (pos == digits || u > Integer.MAX_VALUE || v > Integer.MAX_VALUE)
+				throw malformed(base, buffer, lineStart, n);
+			pos = skipBlanks(buffer, pos, n);
+
+			// optional weight
+			double w = 1;
+			boolean weighted = false;
+			if (pos < n && buffer.get(pos) != '\n') {
+				int numberStart = pos;
+				pos = skipNumber(buffer, pos, n);
+				w = parseDouble(buffer, numberStart, pos);
+				if (Double.isNaN(w))
+					throw malformed(base, buffer, lineStart, n);
+				weighted = true;
+				pos = skipBlanks(buffer, pos, n);
+			}
+			if (pos < n && buffer.get(pos) != '\n')
+				throw malformed(base, buffer, lineStart, n);
+			if (pos == n && !atEof)
+				throw new IOException("Line at byte " + (lineStart + base) + " is longer than " + LINE_SLACK + " bytes");
+			pos++;
+			part.add((int) u, (int) v, w, weighted);
+		}
+	}
+
+	// Spaces, tabs and the '\r' of Windows line endings
+	private static boolean isBlank(byte c) {
+		return c == ' ' || c == '\t' || c == '\r';
+	}
+
+	private static boolean isDigit(byte c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static int skipBlanks(MappedByteBuffer buffer, int pos, int n) {
+		while (pos < n && isBlank(buffer.get(pos)))
+			pos++;
+		return pos;
+	}
+
+	private static int skipNumber(MappedByteBuffer buffer, int pos, int n) {
+		while (pos < n && !isBlank(buffer.get(pos)) && buffer.get(pos) != '\n')
+			pos++;
+		return pos;
+	}
+
+	/**
+	 * Parses [from, to) as a decimal number, NaN if it is not one. Up to 18
+	 * significant digits with a small exponent take the exact fast path;
+	 * anything else falls back to Double.parseDouble.
+	 */
+	private static double parseDouble(MappedByteBuffer buffer, int from, int to) {
+		int pos = from;
+		boolean negative = false;
+		if (pos < to && (buffer.get(pos) == '-' || buffer.get(pos) == '+'))
+			negative = buffer.get(pos++) == '-';
+		long mantissa = 0;
+		int significant = 0, scale = 0, digits = 0;
+		boolean truncated = false;
+		for (; pos < to && isDigit(buffer.get(pos)); pos++, digits++) {
+			if (significant < 18) {
+				mantissa = mantissa * 10 + (buffer.get(pos) - '0');
+				if (mantissa != 0)
+					significant++;
+			} else {
+				scale++;
+				truncated |= buffer.get(pos) != '0';
+			}
+		}
+		if (pos < to && buffer.get(pos) == '.') {
+			for (pos++; pos < to && isDigit(buffer.get(pos)); pos++, digits++) {
+				if (significant < 18) {
+					mantissa = mantissa * 10 + (buffer.get(pos) - '0');
+					scale--;
+					if (mantissa != 0)
+						significant++;
+				} else {
+					truncated |= buffer.get(pos) != '0';
+				}
+			}
+		}
+		if (digits == 0)
+			return Double.NaN;
+		if (pos < to && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E')) {
+			pos++;
+			boolean negativeExponent = false;
+			if (pos < to && (buffer.get(pos) == '-' || buffer.get(pos) == '+'))
+				negativeExponent = buffer.get(pos++) == '-';
+			int exponent = 0, exponentStart = pos;
+			for (; pos < to && isDigit(buffer.get(pos)); pos++)
+				exponent = Math.min(exponent * 10 + (buffer.get(pos) - '0'), 100_000);
+			if (pos == exponentStart)
+				return Double.NaN;
+			scale += negativeExponent ? -exponent : exponent;
+		}
+		if (pos != to)
+			return Double.NaN;
+
+		double value;
+		if (!truncated && mantissa < (1L << 53) && Math.abs(scale) < POW10.length)
+			value = scale >= 0 ? mantissa * POW10[scale] : mantissa / POW10[-scale];
+		else
+			value = slowParse(buffer, from, to);
+		return negative ? -value : value;
+	}
+
+	private static double slowParse(MappedByteBuffer buffer, int from, int to) {
+		byte[] bytes = new byte[to - from];
+		buffer.duplicate().position(from).get(bytes);
+		return Math.abs(Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII)));
+	}
+
+	private static IllegalArgumentException malformed(long base, MappedByteBuffer buffer, int lineStart, int n) {
+		int lineEnd = lineStart;
+		while (lineEnd < n && lineEnd - lineStart < 80 && buffer.get(lineEnd) != '\n')
+			lineEnd++;
+		byte[] line = new byte[lineEnd - lineStart];
+		buffer.duplicate().position(lineStart).get(line);
+		return new IllegalArgumentException("Malformed edge at byte " + (base + lineStart) + ": "
+				+ new String(line, StandardCharsets.US_ASCII).trim());
+	}
+
+	// Counting sort of every part's edges by source, parts in file order
+	private static CSRGraph merge(Part[] parts, int V) {
+		int maxId = -1;
+		long E = 0;
+		boolean weighted = false;
+		for (Part part : parts) {
+			maxId = Math.max(maxId, part.maxId);
+			E += part.E;
+			weighted |= part.cost != null;
+		}
+		if (V < 0)
+			V = maxId + 1;
+		else if (maxId >= V)
+			throw new IllegalArgumentException("Vertex " + maxId + " is out of range for " + V + " vertices");
+		if (E > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many edges for a CSRGraph: " + E);
+
+		int[] offsets = new int[V + 1];
+		for (Part part : parts)
+			for (int i = 0; i < part.E; i++)
+				offsets[part.from[i] + 1]++;
+		for (int v = 0; v < V; v++)
+			offsets[v + 1] += offsets[v];
+
+		int[] targets = new int[(int) E];
+		double[] weights = weighted ? new double[(int) E] : null;
+		int[] next = Arrays.copyOf(offsets, V);
+		for (Part part : parts) {
+			for (int i = 0; i < part.E; i++) {
+				int e = next[part.from[i]]++;
+				targets[e] = part.to[i];
+				if (weights != null)
+					weights[e] = part.cost == null ? 1 : part.cost[i];
+			}
+			part.from = part.to = null; // let the buffers go as soon as they are merged
+			part.cost = null;
+		}
+		return new CSRGraph(V, offsets, targets, weights);
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path file = Files.createTempFile("edges", ".txt");
+		Files.write(file, "# from to weight\n0 1 2.5\n0 2 4\r\n1 2 -1e-1\n\n2 3 5\n".getBytes(StandardCharsets.US_ASCII));
+		CSRGraph graph = EdgeListReader.read(file);
+		file.toFile().deleteOnExit(); // a mapped file cannot be deleted on every OS
+
+		for (int v = 0; v < graph.numVertices(); v++)
+			for (long e = graph.begin(v); e < graph.end(v); e++)
+				System.out.printf("%d -> %d (%.1f)\n", v, graph.target(e), graph.weight(e));
+
+		// Output:
+		// 0 -> 1 (2.5)
+		// 0 -> 2 (4.0)
+		// 1 -> 2 (-0.1)
+		// 2 -> 3 (5.0)
+	}
+}
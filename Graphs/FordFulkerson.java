@@ -1,19 +1,18 @@
 package Graphs;
 
 import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 
 public class FordFulkerson {
 	int vertices;
 	int[][] graph;
 	int maxFlow;
-	ArrayList<String> cutSet;
+	MinCut minCut; // cut edge (i, j) has index i * vertices + j
 
 	FordFulkerson(int vertices, int[][] graph) {
 		this.vertices = vertices;
 		this.graph = graph;
-		this.cutSet = new ArrayList<>();
 	}
 
 	void findMaxFlow(int source, int sink) {
@@ -28,7 +27,8 @@ public class FordFulkerson {
 		}
 
 		int[] parent = new int[vertices];
-		while (BFS(residual, source, sink, parent)) {
+		boolean[] visited = new boolean[vertices];
+		while (BFS(residual, source, sink, parent, visited)) {
 			int flowCapacity = Integer.MAX_VALUE;
 			int t = sink;
 			while (t != source) {
@@ -46,20 +46,12 @@ public class FordFulkerson {
 			maxFlow += flowCapacity;
 		}
 
-		// Minimum Cut:
-		boolean visited[] = new boolean[vertices];
-		DFS(residual, source, visited);
-		for (int i = 0; i < vertices; i++) {
-			for (int j = 0; j < vertices; j++) {
-				if (graph[i][j] > 0 && visited[i] && !visited[j]) {
-					cutSet.add(i + "-" + j);
-				}
-			}
-		}
+		// Minimum Cut: the last, failed BFS left the source side in visited
+		minCut = MinCut.ofMatrix(vertices, graph, visited, maxFlow);
 	}
 
-	boolean BFS(int[][] residual, int source, int dest, int[] parent) {
-		boolean[] visited = new boolean[vertices];
+	boolean BFS(int[][] residual, int source, int dest, int[] parent, boolean[] visited) {
+		Arrays.fill(visited, false);
 		parent[source] = -1;
 
 		Deque<Integer> q = new ArrayDeque<>();
@@ -79,15 +71,6 @@ public class FordFulkerson {
 		return visited[dest];
 	}
 
-	private void DFS(int[][] residual, int source, boolean[] visited) {
-		visited[source] = true;
-		for (int i = 0; i < vertices; i++) {
-			if (!visited[i] && residual[source][i] > 0) {
-				DFS(residual, i, visited);
-			}
-		}
-	}
-
 	public static void main(String[] args) {
 		int vertices = 3;
 		int[][] graph = { { 0, 10, 8, 0, 0, 0 }, { 0, 0, 5, 5, 0, 0 }, { 0, 4, 0, 0, 10, 0 }, { 0, 0, 9, 0, 10, 3 },
@@ -95,11 +78,13 @@ public class FordFulkerson {
 		FordFulkerson obj = new FordFulkerson(vertices, graph);
 		obj.findMaxFlow(0, 2);
 		System.out.println("Maximum Flow :" + obj.maxFlow);
-		System.out.println("Min Cut :" + obj.cutSet);
+		for (int k : obj.minCut.cutEdges())
+			System.out.println("Min cut edge " + k / vertices + "-" + k % vertices);
 
 		// Output:
 		// Maximum Flow :13
-		// Min Cut :[0-2, 1-2]
+		// Min cut edge 0-2
+		// Min cut edge 1-2
 	}
 
 }
@@ -11,40 +11,46 @@
 package Graphs;
 
 public class FordFulkersonDFS {
-	static int visitedToken = 1;
 
 	public static int fordFulkerson(int[][] caps, int source, int sink) {
+		return solve(caps, new int[caps.length], source, sink);
+	}
 
+	/**
+	 * Max flow and min cut of the network, leaving caps untouched. Cut edge
+	 * (i, j) has index i * caps.length + j.
+	 */
+	public static MinCut minCut(int[][] caps, int source, int sink) {
 		int n = caps.length;
+		int[][] residual = new int[n][];
+		for (int i = 0; i < n; i++)
+			residual[i] = caps[i].clone();
 		int[] visited = new int[n];
-		boolean[] minCut = new boolean[n];
+		int maxFlow = solve(residual, visited, source, sink);
+
+		// The nodes on the "LEFT SIDE" of the cut are the ones the last (failed)
+		// DFS for an augmenting path reached from the source, which carry the
+		// same token as the source.
+		boolean[] sourceSide = new boolean[n];
+		for (int i = 0; i < n; i++)
+			sourceSide[i] = visited[i] == visited[source];
+		return MinCut.ofMatrix(n, caps, sourceSide, maxFlow);
+	}
 
-		for (int maxFlow = 0;;) {
+	// Augments on caps in place until no path is left
+	private static int solve(int[][] caps, int[] visited, int source, int sink) {
+		for (int maxFlow = 0, visitedToken = 1;; visitedToken++) {
 
 			// Try to find an augmenting path from source to sink
-			int flow = dfs(caps, visited, source, sink, Integer.MAX_VALUE);
-			visitedToken++;
+			int flow = dfs(caps, visited, visitedToken, source, sink, Integer.MAX_VALUE);
 
 			maxFlow += flow;
-			if (flow == 0) {
-
+			if (flow == 0)
 				return maxFlow;
-
-				// Uncomment to return the min-cut. The nodes on the "LEFT SIDE" of the
-				// cut are marked as true and those on the "RIGHT SIDE" of the cut
-				// are marked as false. This finds all the nodes which participated in the
-				// last (failed) attempt to find an augmenting path from the source to
-				// the sink in the DFS phase.
-				// for(int i = 0; i < n; i++)
-				// if (visited[i] == visitedToken-1)
-				// minCut[i] = true;
-				// return minCut;
-
-			}
 		}
 	}
 
-	private static int dfs(int[][] caps, int[] visited, int node, int sink, int flow) {
+	private static int dfs(int[][] caps, int[] visited, int visitedToken, int node, int sink, int flow) {
 
 		// Found sink node, return flow thus far
 		if (node == sink)
@@ -58,7 +64,7 @@ public class FordFulkersonDFS {
 
 				if (cap[i] < flow)
 					flow = cap[i];
-				int dfsFlow = dfs(caps, visited, i, sink, flow);
+				int dfsFlow = dfs(caps, visited, visitedToken, i, sink, flow);
 
 				if (dfsFlow > 0) {
 					caps[node][i] -= dfsFlow;
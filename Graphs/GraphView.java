@@ -0,0 +1,38 @@
+/**
+ * Read-only view of a directed graph in CSR form, implemented by the heap
+ * CSRGraph and the file backed MappedCSRGraph, so traversals run on either
+ * without copying.
+ *
+ * The out-edges of vertex v are the edge indices [begin(v), end(v)). Edge
+ * indices are longs, so a mapped graph may hold more than 2^31 edges.
+ */
+
+package Graphs;
+
+public interface GraphView {
+
+	int numVertices();
+
+	boolean isWeighted();
+
+	// Index of the first out-edge of v
+	long begin(int v);
+
+	// Index one past the last out-edge of v
+	long end(int v);
+
+	int target(long e);
+
+	// Weight of edge e, 1 for unweighted graphs
+	double weight(long e);
+
+	default int degree(int v) {
+		return (int) (end(v) - begin(v));
+	}
+
+	// Total number of edges as a long, whatever the implementation stores
+	default long edgeCount() {
+		int V = numVertices();
+		return V == 0 ? 0 : end(V - 1);
+	}
+}
@@ -0,0 +1,238 @@
+/**
+ * Bridges and 2-edge-connected components of an undirected graph that only
+ * gains edges, kept up to date per insertion instead of re-running
+ * BridgesAndArticulationPoints.
+ *
+ * Two union-find structures with path compression do the work. The first
+ * groups vertices into 2-edge-connected components; contracting those turns
+ * the graph into a forest whose edges are exactly the bridges, and every tree
+ * is stored with parent links. The second groups the trees' components into
+ * connected components.
+ * - An edge inside one 2-edge-connected component changes nothing.
+ * - An edge joining two trees is a new bridge: the smaller tree is rerooted
+ *   at the edge and hung below the other.
+ * - An edge inside one tree closes a cycle: every component on the tree path
+ *   between its endpoints merges into their LCA, and the bridges along the
+ *   path stop being bridges.
+ *
+ * Time Complexity : O(log V) amortized per insertion, near O(1) per query
+ */
+
+package Graphs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IncrementalBridges {
+
+	private final int n;
+	private int bridgeCount;
+
+	private final int[] twoEdge; // union-find over vertices, 2-edge-connected components
+	private final int[] connected, connectedSize; // union-find over 2-edge components
+
+	// Forest of 2-edge components: the bridge from component c to its parent
+	// is linkFrom[c] - link[c], with linkFrom[c] in c. link[c] is -1 for a root.
+	private final int[] link, linkFrom;
+
+	// LCA search state, reused between insertions
+	private final int[] lastVisit, pathA, pathB;
+	private int visitStamp;
+
+	public IncrementalBridges(int n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Number of vertices cannot be negative");
+		this.n = n;
+		twoEdge = new int[n];
+		connected = new int[n];
+		connectedSize = new int[n];
+		link = new int[n];
+		linkFrom = new int[n];
+		lastVisit = new int[n];
+		pathA = new int[n];
+		pathB = new int[n];
+		for (int v = 0; v < n; v++) {
+			twoEdge[v] = connected[v] = v;
+			connectedSize[v] = 1;
+			link[v] = linkFrom[v] = -1;
+		}
+	}
+
+	/**
+	 * Starts from an undirected graph holding both directions of every edge.
+	 */
+	public IncrementalBridges(CSRGraph graph) {
+		this(graph.numVertices());
+		for (int u = 0; u < n; u++)
+			for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++)
+				if (u < graph.targets[e])
+					addEdge(u, graph.targets[e]);
+	}
+
+	public int bridgeCount() {
+		return bridgeCount;
+	}
+
+	/**
+	 * Returns a representative of v's 2-edge-connected component. Two vertices
+	 * are in the same component if and only if they have the same
+	 * representative.
+	 */
+	public int twoEdgeComponent(int v) {
+		int root = v;
+		while (twoEdge[root] != root)
+			root = twoEdge[root];
+		while (twoEdge[v] != root) {
+			int next = twoEdge[v];
+			twoEdge[v] = root;
+			v = next;
+		}
+		return root;
+	}
+
+	public boolean isConnected(int u, int v) {
+		return connectedComponent(u) == connectedComponent(v);
+	}
+
+	/**
+	 * Returns true if an edge u - v exists and is a bridge.
+	 */
+	public boolean isBridge(int u, int v) {
+		int a = twoEdgeComponent(u), b = twoEdgeComponent(v);
+		if (a == b)
+			return false;
+		return (linkFrom[a] == u && link[a] == v) || (linkFrom[b] == v && link[b] == u);
+	}
+
+	// Same format as BridgesAndArticulationPoints.findBridges, O(V)
+	public List<Integer> getBridges() {
+		List<Integer> bridges = new ArrayList<>(2 * bridgeCount);
+		for (int c = 0; c < n; c++) {
+			if (twoEdge[c] == c && link[c] >= 0) {
+				bridges.add(link[c]);
+				bridges.add(linkFrom[c]);
+			}
+		}
+		return bridges;
+	}
+
+	public void addEdge(int u, int v) {
+		if (u < 0 || u >= n || v < 0 || v >= n)
+			throw new IllegalArgumentException("Edge " + u + "-" + v + " is out of range");
+		int a = twoEdgeComponent(u), b = twoEdgeComponent(v);
+		if (a == b)
+			return;
+		int ca = connectedComponent(a), cb = connectedComponent(b);
+		if (ca != cb) {
+			// Hang the smaller tree below the larger one
+			if (connectedSize[ca] > connectedSize[cb]) {
+				int t = a;
+				a = b;
+				b = t;
+				t = ca;
+				ca = cb;
+				cb = t;
+				t = u;
+				u = v;
+				v = t;
+			}
+			reroot(a);
+			link[a] = v;
+			linkFrom[a] = u;
+			connected[a] = b;
+			connectedSize[cb] += connectedSize[a];
+			bridgeCount++;
+		} else {
+			mergePath(a, b);
+		}
+	}
+
+	// Component of a 2-edge component's tree, roots may have been merged away
+	private int connectedComponent(int v) {
+		int root = twoEdgeComponent(v);
+		while (connected[root] != root)
+			root = connected[root] = twoEdgeComponent(connected[root]);
+		int c = twoEdgeComponent(v);
+		while (c != root) {
+			int next = twoEdgeComponent(connected[c]);
+			connected[c] = root;
+			c = next;
+		}
+		return root;
+	}
+
+	// Makes 2-edge component c the root of its tree by reversing the links on
+	// the path to the old root
+	private void reroot(int c) {
+		int root = c, previous = c;
+		int childTo = -1, childFrom = -1; // old link of the previous component
+		while (c != -1) {
+			int to = link[c], from = linkFrom[c];
+			int parent = to < 0 ? -1 : twoEdgeComponent(to);
+			link[c] = childFrom;
+			linkFrom[c] = childTo;
+			connected[c] = root;
+			childTo = to;
+			childFrom = from;
+			previous = c;
+			c = parent;
+		}
+		connectedSize[root] = connectedSize[previous];
+	}
+
+	// Merges every 2-edge component on the tree path a .. LCA .. b into the LCA
+	private void mergePath(int a, int b) {
+		visitStamp++;
+		int lca = -1, lengthA = 0, lengthB = 0;
+		while (lca < 0) {
+			if (a >= 0) {
+				a = twoEdgeComponent(a);
+				pathA[lengthA++] = a;
+				if (lastVisit[a] == visitStamp) {
+					lca = a;
+					break;
+				}
+				lastVisit[a] = visitStamp;
+				a = link[a];
+			}
+			if (b >= 0) {
+				b = twoEdgeComponent(b);
+				pathB[lengthB++] = b;
+				if (lastVisit[b] == visitStamp) {
+					lca = b;
+					break;
+				}
+				lastVisit[b] = visitStamp;
+				b = link[b];
+			}
+		}
+		collapse(pathA, lengthA, lca);
+		collapse(pathB, lengthB, lca);
+	}
+
+	private void collapse(int[] path, int length, int lca) {
+		for (int i = 0; i < length; i++) {
+			int c = path[i];
+			if (c == lca)
+				break;
+			twoEdge[c] = lca;
+			bridgeCount--;
+		}
+	}
+
+	public static void main(String[] args) {
+		IncrementalBridges graph = new IncrementalBridges(9);
+		int[][] edges = { { 0, 1 }, { 0, 2 }, { 1, 2 }, { 2, 3 }, { 3, 4 }, { 2, 5 }, { 5, 6 }, { 6, 7 }, { 7, 8 },
+				{ 8, 5 } };
+		for (int[] e : edges)
+			graph.addEdge(e[0], e[1]);
+		System.out.println("Bridges: " + graph.getBridges());
+
+		graph.addEdge(4, 0);
+		System.out.println("After 4 - 0, bridges: " + graph.getBridges() + ", 3 - 4 is a bridge: " + graph.isBridge(3, 4));
+
+		// Output:
+		// Bridges: [2, 3, 3, 4, 2, 5]
+		// After 4 - 0, bridges: [2, 5], 3 - 4 is a bridge: false
+	}
+}
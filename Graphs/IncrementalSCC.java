@@ -0,0 +1,365 @@
+/**
+ * Strongly connected components of a graph that only ever gains edges.
+ *
+ * The structure keeps the condensation DAG together with a topological order
+ * of its components (one slot per component, Pearce-Kelly style). An edge that
+ * agrees with the order costs O(1). An edge cu -> cv going backwards in the
+ * order triggers two local searches, bounded to the slots between cv and cu:
+ * forward from cv and backward from cu. If the forward search reaches cu, the
+ * components found by both searches lie on a cycle through the new edge and
+ * are merged into one. Either way the searched components are moved to a
+ * valid order using only the slots they occupied, so nothing outside that
+ * region is touched.
+ *
+ * Members of a component form a circular linked list and the smaller side is
+ * relabelled on a merge, so componentOf(v) is a plain array read.
+ *
+ * Time Complexity : O(1) for componentOf and sccCount ; addEdge is proportional
+ * to the edges of the affected region of the order
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+
+public class IncrementalSCC {
+
+	private final int V;
+	private int sccCount;
+
+	// Vertex state
+	private final int[] comp; // representative vertex of v's component
+	private final int[] next; // circular list of the members of a component
+
+	// Component state, indexed by representative
+	private final int[] size, ord;
+	private final int[][] out, in; // member -> vertex edges leaving / entering the component
+	private final int[] outSize, inSize;
+
+	private final int[] slot; // component in each slot of the order, -1 if free
+
+	// Search state, reused between insertions
+	private final int[] forwardMark, backwardMark, stack;
+	private int stamp;
+
+	/**
+	 * Creates V vertices and no edges, i.e. V singleton components.
+	 */
+	public IncrementalSCC(int V) {
+		if (V < 0)
+			throw new IllegalArgumentException("Number of vertices cannot be negative");
+		this.V = V;
+		sccCount = V;
+		comp = new int[V];
+		next = new int[V];
+		size = new int[V];
+		ord = new int[V];
+		slot = new int[V];
+		out = new int[V][];
+		in = new int[V][];
+		outSize = new int[V];
+		inSize = new int[V];
+		forwardMark = new int[V];
+		backwardMark = new int[V];
+		stack = new int[2 * V]; // the two searches overlap when they find a cycle
+		for (int v = 0; v < V; v++) {
+			comp[v] = next[v] = ord[v] = slot[v] = v;
+			size[v] = 1;
+		}
+	}
+
+	/**
+	 * Starts from the components of an existing graph, found with Tarjan's
+	 * algorithm in O(V+E).
+	 */
+	public IncrementalSCC(CSRGraph graph) {
+		this(graph.numVertices());
+		int[] low = new StronglyConnectedComponents(graph).getSccs();
+
+		// The first vertex of each Tarjan label becomes the representative
+		int[] rep = new int[V];
+		Arrays.fill(rep, -1);
+		for (int v = 0; v < V; v++) {
+			if (rep[low[v]] < 0) {
+				rep[low[v]] = v;
+			} else {
+				int r = rep[low[v]];
+				comp[v] = r;
+				next[v] = next[r];
+				next[r] = v;
+				size[r]++;
+				size[v] = 0;
+			}
+		}
+		for (int u = 0; u < V; u++)
+			for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++)
+				storeEdge(u, graph.targets[e]);
+
+		// Kahn's algorithm over the condensation gives the initial order
+		int[] inDegree = new int[V];
+		int[] queue = new int[V];
+		int head = 0, tail = 0;
+		for (int c = 0; c < V; c++) {
+			slot[c] = -1;
+			if (comp[c] != c)
+				continue;
+			inDegree[c] = inSize[c];
+			if (inDegree[c] == 0)
+				queue[tail++] = c;
+		}
+		while (head < tail) {
+			int c = queue[head];
+			ord[c] = head;
+			slot[head++] = c;
+			for (int i = 0; i < outSize[c]; i++) {
+				int w = comp[out[c][i]];
+				if (--inDegree[w] == 0)
+					queue[tail++] = w;
+			}
+		}
+		sccCount = tail;
+	}
+
+	public int numVertices() {
+		return V;
+	}
+
+	public int sccCount() {
+		return sccCount;
+	}
+
+	/**
+	 * Returns the representative vertex of v's component. Two vertices are in
+	 * the same SCC if and only if they have the same representative.
+	 */
+	public int componentOf(int v) {
+		return comp[v];
+	}
+
+	public int componentSize(int v) {
+		return size[comp[v]];
+	}
+
+	/**
+	 * Returns the representatives of all components in a topological order of
+	 * the condensation DAG, O(V).
+	 */
+	public int[] componentsInOrder() {
+		int[] order = new int[sccCount];
+		int n = 0;
+		for (int c : slot)
+			if (c >= 0)
+				order[n++] = c;
+		return order;
+	}
+
+	/**
+	 * Adds the edge from -> to and merges every component it puts on a cycle.
+	 *
+	 * @return true if components were merged
+	 */
+	public boolean addEdge(int from, int to) {
+		if (from < 0 || from >= V || to < 0 || to >= V)
+			throw new IllegalArgumentException("Edge " + from + "->" + to + " is out of range");
+		int cu = comp[from], cv = comp[to];
+		if (cu == cv)
+			return false; // stays inside one component forever
+		storeEdge(from, to);
+		if (ord[cu] < ord[cv])
+			return false;
+		return reorder(cu, cv);
+	}
+
+	/**
+	 * Adds from[i] -> to[i] for every i.
+	 *
+	 * @return the number of edges that merged components
+	 */
+	public int addEdges(int[] from, int[] to) {
+		if (from.length != to.length)
+			throw new IllegalArgumentException("Edge arrays must have the same length");
+		int merges = 0;
+		for (int i = 0; i < from.length; i++)
+			if (addEdge(from[i], to[i]))
+				merges++;
+		return merges;
+	}
+
+	private void storeEdge(int from, int to) {
+		int cu = comp[from], cv = comp[to];
+		if (cu == cv)
+			return;
+		out[cu] = append(out[cu], outSize[cu]++, to);
+		in[cv] = append(in[cv], inSize[cv]++, from);
+	}
+
+	private static int[] append(int[] list, int index, int value) {
+		if (list == null)
+			list = new int[2];
+		else if (index == list.length)
+			list = Arrays.copyOf(list, index * 2);
+		list[index] = value;
+		return list;
+	}
+
+	// Handles cu -> cv with ord[cv] < ord[cu]
+	private boolean reorder(int cu, int cv) {
+		int lb = ord[cv], ub = ord[cu];
+		if (++stamp == 0) {
+			Arrays.fill(forwardMark, 0);
+			Arrays.fill(backwardMark, 0);
+			stamp = 1;
+		}
+		int forwardCount = search(cv, ub, true, 0);
+		boolean cycle = forwardMark[cu] == stamp;
+		int backwardCount = search(cu, lb, false, forwardCount);
+
+		// Slots of every searched component; the searched sets overlap
+		// exactly in the components that now form one SCC
+		int[] slots = new int[forwardCount + backwardCount];
+		int n = 0;
+		for (int i = 0; i < forwardCount; i++)
+			slots[n++] = ord[stack[i]];
+		int[] backwardOrds = new int[backwardCount];
+		int[] forwardOrds = new int[forwardCount];
+		int b = 0, f = 0, merged = 0;
+		for (int i = 0; i < backwardCount; i++) {
+			int c = stack[forwardCount + i];
+			if (forwardMark[c] == stamp) {
+				merged++;
+			} else {
+				slots[n++] = ord[c];
+				backwardOrds[b++] = ord[c];
+			}
+		}
+		for (int i = 0; i < forwardCount; i++) {
+			int c = stack[i];
+			if (backwardMark[c] != stamp)
+				forwardOrds[f++] = ord[c];
+		}
+		Arrays.sort(slots, 0, n);
+		Arrays.sort(backwardOrds, 0, b);
+		Arrays.sort(forwardOrds, 0, f);
+
+		// Map old slots to components before any slot is overwritten
+		for (int i = 0; i < b; i++)
+			backwardOrds[i] = slot[backwardOrds[i]];
+		for (int i = 0; i < f; i++)
+			forwardOrds[i] = slot[forwardOrds[i]];
+		int rep = cycle ? merge(forwardCount) : -1;
+
+		// Everything reaching cu takes the lowest slots and everything reachable
+		// from cv the highest, each group keeping its old relative order, so
+		// the first only moves down and the second only moves up. The new SCC
+		// goes in between and the slots of the merged components are freed.
+		for (int i = 0; i < n; i++)
+			slot[slots[i]] = -1;
+		for (int i = 0; i < b; i++)
+			place(backwardOrds[i], slots[i]);
+		for (int i = 0; i < f; i++)
+			place(forwardOrds[i], slots[n - f + i]);
+		if (cycle)
+			place(rep, slots[b]);
+
+		if (cycle)
+			sccCount -= merged - 1;
+		return cycle;
+	}
+
+	private void place(int c, int position) {
+		ord[c] = position;
+		slot[position] = c;
+	}
+
+	/**
+	 * DFS over the condensation from start, forward along out-edges to slots up
+	 * to bound, or backward along in-edges to slots down to bound. The visited
+	 * components are left on stack from index base on, and their mark is set
+	 * to the current stamp.
+	 *
+	 * @return number of visited components
+	 */
+	private int search(int start, int bound, boolean forward, int base) {
+		int[] mark = forward ? forwardMark : backwardMark;
+		int top = base, visit = base;
+		mark[start] = stamp;
+		stack[top++] = start;
+		while (visit < top) {
+			int c = stack[visit++];
+			int[] list = forward ? out[c] : in[c];
+			int listSize = forward ? outSize[c] : inSize[c];
+			for (int i = 0; i < listSize; i++) {
+				int w = comp[list[i]];
+				if (w == c) {
+					// Edge became internal through a merge, drop it for good
+					list[i--] = list[--listSize];
+					continue;
+				}
+				if (mark[w] == stamp || (forward ? ord[w] > bound : ord[w] < bound))
+					continue;
+				mark[w] = stamp;
+				stack[top++] = w;
+			}
+			if (forward)
+				outSize[c] = listSize;
+			else
+				inSize[c] = listSize;
+		}
+		return top - base;
+	}
+
+	/**
+	 * Merges the components marked by both searches, all of which are among the
+	 * first forwardCount entries of stack, into the largest of them and
+	 * relabels the members of the others.
+	 */
+	private int merge(int forwardCount) {
+		int rep = -1;
+		for (int i = 0; i < forwardCount; i++) {
+			int c = stack[i];
+			if (backwardMark[c] == stamp && (rep < 0 || size[c] > size[rep]))
+				rep = c;
+		}
+		for (int i = 0; i < forwardCount; i++) {
+			int c = stack[i];
+			if (c == rep || backwardMark[c] != stamp)
+				continue;
+			int v = c;
+			do {
+				comp[v] = rep;
+				v = next[v];
+			} while (v != c);
+			int repNext = next[rep];
+			next[rep] = next[c];
+			next[c] = repNext;
+
+			size[rep] += size[c];
+			size[c] = 0;
+			for (int j = 0; j < outSize[c]; j++)
+				out[rep] = append(out[rep], outSize[rep]++, out[c][j]);
+			for (int j = 0; j < inSize[c]; j++)
+				in[rep] = append(in[rep], inSize[rep]++, in[c][j]);
+			out[c] = in[c] = null;
+			outSize[c] = inSize[c] = 0;
+		}
+		return rep;
+	}
+
+	public static void main(String[] args) {
+		int n = 8;
+		IncrementalSCC scc = new IncrementalSCC(n);
+		int[][] edges = { { 6, 0 }, { 6, 2 }, { 3, 4 }, { 6, 4 }, { 2, 0 }, { 0, 1 }, { 4, 5 }, { 5, 6 }, { 3, 7 },
+				{ 7, 5 }, { 1, 2 }, { 7, 3 }, { 5, 0 } };
+		for (int[] e : edges) {
+			if (scc.addEdge(e[0], e[1]))
+				System.out.printf("%d -> %d closes a cycle, %d components left\n", e[0], e[1], scc.sccCount());
+		}
+		System.out.println("Component of 7: " + scc.componentOf(7) + ", component of 3: " + scc.componentOf(3));
+
+		// Output:
+		// 5 -> 6 closes a cycle, 6 components left
+		// 1 -> 2 closes a cycle, 4 components left
+		// 7 -> 3 closes a cycle, 3 components left
+		// Component of 7: 3, component of 3: 3
+	}
+}
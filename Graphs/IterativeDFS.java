@@ -0,0 +1,117 @@
+/**
+ * Depth first search over a GraphView (a CSRGraph or a MappedCSRGraph)
+ * driven by an explicit stack instead of recursion, so graphs with very long
+ * paths do not overflow the thread stack.
+ *
+ * The search keeps one int[] stack of vertices and one long edge cursor per
+ * vertex (the next out-edge to look at), and reports every step to a Visitor.
+ * No objects are allocated per visited vertex or edge.
+ *
+ * Callbacks arrive in the same order as in a recursive DFS:
+ * - discover(v, parent) when v is first reached (parent is -1 for a root)
+ * - nonTreeEdge(v, to, parent) for an edge v->to whose target was already seen
+ * - finish(v, parent) once every out-edge of v has been explored
+ * - treeEdgeFinished(parent, v) right after finish, back in the parent
+ *
+ * Time Complexity : O(V+E) ; Memory : an int, a long and a boolean per vertex
+ */
+
+package Graphs;
+
+public class IterativeDFS {
+
+	public interface Visitor {
+		default void discover(int v, int parent) {
+		}
+
+		default void nonTreeEdge(int v, int to, int parent) {
+		}
+
+		default void finish(int v, int parent) {
+		}
+
+		default void treeEdgeFinished(int parent, int v) {
+		}
+	}
+
+	private final GraphView graph;
+	private final boolean[] visited;
+	private final int[] stack;
+	private final long[] cursor;
+
+	public IterativeDFS(GraphView graph) {
+		this.graph = graph;
+		int V = graph.numVertices();
+		visited = new boolean[V];
+		stack = new int[V];
+		cursor = new long[V];
+	}
+
+	public boolean isVisited(int v) {
+		return visited[v];
+	}
+
+	/**
+	 * Runs a DFS from every unvisited vertex in increasing id order.
+	 */
+	public void runAll(Visitor visitor) {
+		for (int v = 0; v < graph.numVertices(); v++)
+			run(v, visitor);
+	}
+
+	/**
+	 * Explores everything reachable from root that has not been visited yet. Does
+	 * nothing if root was already visited.
+	 */
+	public void run(int root, Visitor visitor) {
+		if (visited[root])
+			return;
+		visited[root] = true;
+		cursor[root] = graph.begin(root);
+		int top = 0;
+		stack[0] = root;
+		visitor.discover(root, -1);
+
+		while (top >= 0) {
+			int v = stack[top];
+			int parent = top > 0 ? stack[top - 1] : -1;
+			if (cursor[v] < graph.end(v)) {
+				int to = graph.target(cursor[v]++);
+				if (!visited[to]) {
+					visited[to] = true;
+					cursor[to] = graph.begin(to);
+					stack[++top] = to;
+					visitor.discover(to, v);
+				} else {
+					visitor.nonTreeEdge(v, to, parent);
+				}
+			} else {
+				top--;
+				visitor.finish(v, parent);
+				if (parent >= 0)
+					visitor.treeEdgeFinished(parent, v);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		// A path long enough to overflow a recursive DFS on a default stack
+		int V = 1_000_000;
+		CSRGraph.Builder builder = new CSRGraph.Builder(V, V);
+		for (int v = 0; v + 1 < V; v++)
+			builder.addEdge(v, v + 1);
+		CSRGraph path = builder.build();
+
+		int[] depth = new int[V];
+		new IterativeDFS(path).runAll(new Visitor() {
+			@Override
+			public void discover(int v, int parent) {
+				depth[v] = parent < 0 ? 0 : depth[parent] + 1;
+			}
+		});
+		System.out.println("Depth of the last vertex: " + depth[V - 1]);
+
+		// Output:
+		// Depth of the last vertex: 999999
+	}
+}
@@ -0,0 +1,211 @@
+/**
+ * Johnson's all pairs shortest paths for sparse graphs that may have negative
+ * edge weights (but no negative cycles).
+ *
+ * One Bellman-Ford run from a virtual source joined to every vertex gives
+ * potentials h with h(v) <= h(u) + w(u,v). Reweighting every edge to
+ * w(u,v) + h(u) - h(v) makes all weights non-negative without changing which
+ * paths are shortest, so V Dijkstra runs, spread over a fork-join pool, finish
+ * the job: d(u,v) = d'(u,v) - h(u) + h(v).
+ *
+ * Rows are handed to a RowConsumer as soon as they are computed, so the V^2
+ * matrix never has to exist at once. DistanceMatrix keeps it off-heap when it
+ * is needed as a whole.
+ *
+ * Time Complexity : O(VE + V(V+E) log V) ; Memory : O(V+E) per worker thread
+ */
+
+package Graphs;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class Johnson {
+
+	// Sources handled by one fork-join leaf task
+	private static final int GRAIN = 4;
+
+	/**
+	 * Receives the distances from one source. It is called from several worker
+	 * threads at once, and the row array is reused afterwards, so copy whatever
+	 * must outlive the call.
+	 */
+	public interface RowConsumer {
+		void accept(int source, double[] row);
+	}
+
+	private final CSRGraph graph, reweighted;
+	private final double[] potential;
+
+	/**
+	 * Computes the potentials and the reweighted graph.
+	 *
+	 * @throws IllegalArgumentException if the graph has a negative cycle
+	 */
+	public Johnson(CSRGraph graph) {
+		this.graph = graph;
+		int V = graph.numVertices();
+
+		// Vertex V is the virtual source with a 0 edge to every other vertex
+		int E = graph.numEdges();
+		int[] from = new int[E + V], to = new int[E + V];
+		double[] cost = new double[E + V];
+		for (int u = 0, i = 0; u < V; u++) {
+			for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++, i++) {
+				from[i] = u;
+				to[i] = graph.targets[e];
+				cost[i] = graph.weight(e);
+			}
+		}
+		for (int v = 0; v < V; v++) {
+			from[E + v] = V;
+			to[E + v] = v;
+		}
+		double[] h = BellmanFord.findShortestPathSPFA(CSRGraph.fromEdgeArrays(V + 1, from, to, cost), V);
+		potential = new double[V];
+		for (int v = 0; v < V; v++) {
+			if (h[v] == Double.NEGATIVE_INFINITY)
+				throw new IllegalArgumentException("Graph contains a negative cycle");
+			potential[v] = h[v];
+		}
+
+		double[] weights = new double[E];
+		for (int u = 0; u < V; u++)
+			for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++)
+				// Rounding can leave -1e-16 where the exact value is 0
+				weights[e] = Math.max(0, graph.weight(e) + potential[u] - potential[graph.targets[e]]);
+		reweighted = new CSRGraph(V, graph.offsets, graph.targets, weights);
+	}
+
+	public int numVertices() {
+		return graph.numVertices();
+	}
+
+	/**
+	 * Streams every row of the distance matrix to the consumer using the common
+	 * fork-join pool. Rows arrive in no particular order.
+	 */
+	public void allPairs(RowConsumer consumer) {
+		allPairs(consumer, ForkJoinPool.commonPool());
+	}
+
+	public void allPairs(RowConsumer consumer, ForkJoinPool pool) {
+		DijkstraQueryEngine engine = new DijkstraQueryEngine(reweighted);
+		ThreadLocal<double[]> rows = ThreadLocal.withInitial(() -> new double[numVertices()]);
+		pool.invoke(new SourceTask(engine, rows, consumer, 0, numVertices()));
+	}
+
+	private final class SourceTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final DijkstraQueryEngine engine;
+		private final ThreadLocal<double[]> rows;
+		private final RowConsumer consumer;
+		private final int lo, hi;
+
+		SourceTask(DijkstraQueryEngine engine, ThreadLocal<double[]> rows, RowConsumer consumer, int lo, int hi) {
+			this.engine = engine;
+			this.rows = rows;
+			this.consumer = consumer;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= GRAIN) {
+				double[] row = rows.get();
+				for (int source = lo; source < hi; source++) {
+					engine.distancesFrom(source, row);
+					for (int v = 0; v < row.length; v++)
+						row[v] += potential[v] - potential[source]; // infinity stays infinity
+					consumer.accept(source, row);
+				}
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new SourceTask(engine, rows, consumer, lo, mid), new SourceTask(engine, rows, consumer, mid, hi));
+		}
+	}
+
+	/**
+	 * Computes the whole matrix into off-heap memory.
+	 */
+	public DistanceMatrix distanceMatrix() {
+		DistanceMatrix matrix = new DistanceMatrix(numVertices());
+		allPairs(matrix::setRow);
+		return matrix;
+	}
+
+	/**
+	 * A V x V matrix of doubles stored outside the Java heap in direct buffers of
+	 * whole rows, each buffer staying below the 2GB limit of a ByteBuffer.
+	 */
+	public static class DistanceMatrix {
+
+		private final int V, rowsPerChunk;
+		private final DoubleBuffer[] chunks;
+
+		public DistanceMatrix(int V) {
+			this.V = V;
+			long rowBytes = Math.max(1L, (long) V * Double.BYTES);
+			rowsPerChunk = (int) Math.max(1, Math.min(V, Integer.MAX_VALUE / rowBytes));
+			int chunkCount = V == 0 ? 0 : (V + rowsPerChunk - 1) / rowsPerChunk;
+			chunks = new DoubleBuffer[chunkCount];
+			for (int c = 0; c < chunkCount; c++) {
+				int rows = Math.min(rowsPerChunk, V - c * rowsPerChunk);
+				chunks[c] = ByteBuffer.allocateDirect((int) (rows * rowBytes)).order(ByteOrder.nativeOrder())
+						.asDoubleBuffer();
+			}
+		}
+
+		public int size() {
+			return V;
+		}
+
+		public double get(int from, int to) {
+			return chunks[from / rowsPerChunk].get((from % rowsPerChunk) * V + to);
+		}
+
+		// Copies row 'from' into the given array of length V
+		public void getRow(int from, double[] row) {
+			chunks[from / rowsPerChunk].duplicate().position((from % rowsPerChunk) * V).get(row, 0, V);
+		}
+
+		// Rows never overlap, so different threads may set different rows at once
+		public void setRow(int from, double[] row) {
+			chunks[from / rowsPerChunk].duplicate().position((from % rowsPerChunk) * V).put(row, 0, V);
+		}
+
+		// Streams the rows in order through one reused array
+		public void forEachRow(RowConsumer consumer) {
+			double[] row = new double[V];
+			for (int from = 0; from < V; from++) {
+				getRow(from, row);
+				consumer.accept(from, row);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		int V = 4;
+		CSRGraph graph = new CSRGraph.Builder(V).addEdge(0, 1, -5).addEdge(0, 2, 2).addEdge(0, 3, 3).addEdge(1, 2, 4)
+				.addEdge(2, 3, 1).build();
+
+		DistanceMatrix dist = new Johnson(graph).distanceMatrix();
+		dist.forEachRow((from, row) -> {
+			for (int to = 0; to < V; to++)
+				System.out.printf("%10.1f", row[to]);
+			System.out.println();
+		});
+
+		// Output:
+		//        0.0      -5.0      -1.0       0.0
+		//   Infinity       0.0       4.0       5.0
+		//   Infinity  Infinity       0.0       1.0
+		//   Infinity  Infinity  Infinity       0.0
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * ALT (A*, Landmarks, Triangle inequality) lower bounds for A* searches.
+ *
+ * For every landmark L the distances d(L, v) and d(v, L) are precomputed with
+ * two full Dijkstra runs. By the triangle inequality both d(L, t) - d(L, v)
+ * and d(v, L) - d(t, L) are lower bounds on d(v, t), and the heuristic takes
+ * the largest such bound over all landmarks.
+ *
+ * Preprocessing : O(k (V+E) log V) ; Memory : 2kV doubles ; Estimate : O(k)
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+
+public class LandmarkHeuristic implements DijkstraQueryEngine.Heuristic {
+
+	private final int[] landmarks;
+	private final double[][] from, to; // from[i][v] = d(L_i, v), to[i][v] = d(v, L_i)
+
+	public LandmarkHeuristic(CSRGraph graph, int[] landmarks) {
+		this.landmarks = landmarks.clone();
+		DijkstraQueryEngine forward = new DijkstraQueryEngine(graph);
+		DijkstraQueryEngine backward = new DijkstraQueryEngine(graph.transpose());
+		from = new double[landmarks.length][];
+		to = new double[landmarks.length][];
+		for (int i = 0; i < landmarks.length; i++) {
+			from[i] = forward.distancesFrom(landmarks[i]);
+			to[i] = backward.distancesFrom(landmarks[i]);
+		}
+	}
+
+	/**
+	 * Picks k landmarks by farthest-point selection: each new landmark is the
+	 * reachable vertex farthest from the ones chosen so far, which tends to place
+	 * them on the periphery where their bounds are tightest.
+	 */
+	public static LandmarkHeuristic farthest(CSRGraph graph, int k) {
+		int V = graph.numVertices();
+		k = Math.min(k, V);
+		int[] landmarks = new int[k];
+		if (k == 0)
+			return new LandmarkHeuristic(graph, landmarks);
+
+		DijkstraQueryEngine engine = new DijkstraQueryEngine(graph);
+		double[] nearest = new double[V];
+		Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+		int next = 0;
+		for (int i = 0; i < k; i++) {
+			landmarks[i] = next;
+			double[] dist = engine.distancesFrom(next);
+			double farthest = -1;
+			for (int v = 0; v < V; v++) {
+				nearest[v] = Math.min(nearest[v], dist[v]);
+				// Unreachable vertices count as farthest of all, so that other
+				// components also get a landmark
+				double d = nearest[v] == Double.POSITIVE_INFINITY ? Double.MAX_VALUE : nearest[v];
+				if (d > farthest) {
+					farthest = d;
+					next = v;
+				}
+			}
+		}
+		return new LandmarkHeuristic(graph, landmarks);
+	}
+
+	public int[] landmarks() {
+		return landmarks.clone();
+	}
+
+	@Override
+	public double estimate(int v, int dest) {
+		double bound = 0;
+		for (int i = 0; i < landmarks.length; i++) {
+			double a = from[i][dest] - from[i][v];
+			double b = to[i][v] - to[i][dest];
+			// inf - inf is NaN and says nothing, NaN comparisons are false
+			if (a > bound)
+				bound = a;
+			if (b > bound)
+				bound = b;
+		}
+		return bound;
+	}
+}
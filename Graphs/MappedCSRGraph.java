@@ -0,0 +1,436 @@
+/**
+ * A CSR graph read straight from a memory-mapped file, plus the writer for
+ * that file format.
+ *
+ * Opening the file maps it with FileChannel.map and only parses the header,
+ * so it takes milliseconds whatever the graph size. Edges are read from the
+ * mapping on demand, never copied to the heap. The pages live in the OS page
+ * cache, so every JVM mapping the same file shares one copy.
+ *
+ * File layout, little endian, every section 8-byte aligned:
+ *   header   : magic "CSR1" (int), version (int), flags (int, bit 0 = weighted),
+ *              reserved (int), V (long), E (long), CRC32C of everything after
+ *              the header (long), zero padding up to HEADER_BYTES
+ *   offsets  : V+1 longs, out-edges of v are [offsets[v], offsets[v+1])
+ *   targets  : E ints, zero padded to a multiple of 8 bytes
+ *   weights  : E doubles, only if weighted
+ *
+ * Offsets are longs and the file is mapped in 1GB chunks, so graphs with
+ * more than 2^31 edges work too. Such graphs are written with a Writer,
+ * which streams the edges and never holds them on the heap.
+ *
+ * Open : O(1) ; Memory : O(1) heap, the file is paged in as it is touched
+ */
+
+package Graphs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+public class MappedCSRGraph implements GraphView {
+
+	static final int MAGIC = 0x31525343; // "CSR1" read as a little endian int
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 64;
+	private static final int FLAG_WEIGHTED = 1;
+
+	// Mapping granularity, a multiple of 8 so no value straddles two chunks
+	private static final int CHUNK_SHIFT = 30;
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+	private final int V;
+	private final long E, checksum;
+	private final boolean weighted;
+	private final long offsetsAt, targetsAt, weightsAt, fileBytes;
+	private final MappedByteBuffer[] chunks;
+
+	private MappedCSRGraph(int V, long E, boolean weighted, long checksum, MappedByteBuffer[] chunks, long fileBytes) {
+		this.V = V;
+		this.E = E;
+		this.weighted = weighted;
+		this.checksum = checksum;
+		this.chunks = chunks;
+		this.fileBytes = fileBytes;
+		offsetsAt = HEADER_BYTES;
+		targetsAt = offsetsAt + 8L * (V + 1);
+		weightsAt = targetsAt + align8(4L * E);
+	}
+
+	private static long align8(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	private static long fileSize(int V, long E, boolean weighted) {
+		return HEADER_BYTES + 8L * (V + 1) + align8(4L * E) + (weighted ? 8L * E : 0);
+	}
+
+	/**
+	 * Maps the file read-only and checks the header. The checksum is not
+	 * verified here, since that reads the whole file; call verify() for it.
+	 *
+	 * @throws IOException if the file is not a graph in this format
+	 */
+	public static MappedCSRGraph open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_BYTES)
+				throw new IOException(file + " is not a CSR graph file");
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != MAGIC)
+				throw new IOException(file + " is not a CSR graph file");
+			if (header.getInt(4) != VERSION)
+				throw new IOException(file + " has unsupported version " + header.getInt(4));
+			boolean weighted = (header.getInt(8) & FLAG_WEIGHTED) != 0;
+			long V = header.getLong(16), E = header.getLong(24);
+			if (V < 0 || V >= Integer.MAX_VALUE || E < 0 || size != fileSize((int) V, E, weighted))
+				throw new IOException(file + " is truncated or has a corrupt header");
+
+			// The mapping stays valid after the channel is closed
+			int chunkCount = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+			MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+			for (int c = 0; c < chunkCount; c++) {
+				long position = (long) c << CHUNK_SHIFT;
+				chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(1L << CHUNK_SHIFT, size - position));
+				chunks[c].order(ByteOrder.LITTLE_ENDIAN);
+			}
+			return new MappedCSRGraph((int) V, E, weighted, header.getLong(32), chunks, size);
+		}
+	}
+
+	public int numVertices() {
+		return V;
+	}
+
+	public long numEdges() {
+		return E;
+	}
+
+	@Override
+	public long edgeCount() {
+		return E;
+	}
+
+	public boolean isWeighted() {
+		return weighted;
+	}
+
+	public long fileBytes() {
+		return fileBytes;
+	}
+
+	// Index of the first out-edge of v
+	public long begin(int v) {
+		return getLong(offsetsAt + 8L * v);
+	}
+
+	// Index one past the last out-edge of v
+	public long end(int v) {
+		return getLong(offsetsAt + 8L * (v + 1));
+	}
+
+	public int degree(int v) {
+		return (int) (end(v) - begin(v));
+	}
+
+	public int target(long e) {
+		long position = targetsAt + 4L * e;
+		return chunks[(int) (position >>> CHUNK_SHIFT)].getInt((int) (position & CHUNK_MASK));
+	}
+
+	// Weight of edge e, 1 for unweighted graphs
+	public double weight(long e) {
+		if (!weighted)
+			return 1;
+		long position = weightsAt + 8L * e;
+		return chunks[(int) (position >>> CHUNK_SHIFT)].getDouble((int) (position & CHUNK_MASK));
+	}
+
+	private long getLong(long position) {
+		return chunks[(int) (position >>> CHUNK_SHIFT)].getLong((int) (position & CHUNK_MASK));
+	}
+
+	/**
+	 * Recomputes the CRC32C of the body, reading the whole file once.
+	 *
+	 * @return true if it matches the checksum in the header
+	 */
+	public boolean verify() {
+		CRC32C crc = new CRC32C();
+		for (int c = 0; c < chunks.length; c++) {
+			ByteBuffer chunk = chunks[c].duplicate();
+			if (c == 0)
+				chunk.position(HEADER_BYTES);
+			crc.update(chunk);
+		}
+		return crc.getValue() == checksum;
+	}
+
+	/**
+	 * Copies the graph into a heap CSRGraph for the algorithms that still work
+	 * on CSRGraph arrays; traversals taking a GraphView run on the mapping
+	 * directly. Bulk copies, no parsing, but it needs E below 2^31.
+	 */
+	public CSRGraph toCSRGraph() {
+		if (E > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Graph has too many edges for a CSRGraph");
+		int[] offsets = new int[V + 1];
+		for (int v = 0; v <= V; v++)
+			offsets[v] = (int) getLong(offsetsAt + 8L * v);
+		int[] targets = new int[(int) E];
+		readInts(targetsAt, targets);
+		double[] weights = null;
+		if (weighted) {
+			weights = new double[(int) E];
+			readDoubles(weightsAt, weights);
+		}
+		return new CSRGraph(V, offsets, targets, weights);
+	}
+
+	// Bulk copies values starting at position, one chunk at a time
+	private void readInts(long position, int[] into) {
+		for (int done = 0; done < into.length;) {
+			ByteBuffer view = restOfChunk(position + 4L * done);
+			int count = Math.min(into.length - done, view.remaining() / 4);
+			view.asIntBuffer().get(into, done, count);
+			done += count;
+		}
+	}
+
+	private void readDoubles(long position, double[] into) {
+		for (int done = 0; done < into.length;) {
+			ByteBuffer view = restOfChunk(position + 8L * done);
+			int count = Math.min(into.length - done, view.remaining() / 8);
+			view.asDoubleBuffer().get(into, done, count);
+			done += count;
+		}
+	}
+
+	// A little endian view from position to the end of its chunk
+	private ByteBuffer restOfChunk(long position) {
+		ByteBuffer view = chunks[(int) (position >>> CHUNK_SHIFT)].duplicate();
+		view.position((int) (position & CHUNK_MASK));
+		return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Writes any graph view in this format, edge by edge through a Writer, so
+	 * a mapped graph can be rewritten without copying it to the heap.
+	 */
+	public static void write(GraphView graph, Path file) throws IOException {
+		int V = graph.numVertices();
+		long[] offsets = new long[V + 1];
+		for (int v = 0; v < V; v++)
+			offsets[v + 1] = graph.end(v);
+		boolean weighted = graph.isWeighted();
+		try (Writer writer = new Writer(file, offsets, weighted)) {
+			for (int v = 0; v < V; v++) {
+				for (long e = graph.begin(v), end = graph.end(v); e < end; e++) {
+					if (weighted)
+						writer.addEdge(graph.target(e), graph.weight(e));
+					else
+						writer.addEdge(graph.target(e));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Streams a graph into a file in this format. The offsets are given up
+	 * front as longs, then every edge is added in CSR order (all out-edges of
+	 * vertex 0, then of vertex 1, ...). Only the offsets and two small direct
+	 * buffers are held on the heap, so E may exceed 2^31.
+	 *
+	 * Targets are written in file order and checksummed on the way. Weights
+	 * go to their own section at the same time, so close() reads that section
+	 * back once to finish the checksum before patching the header.
+	 */
+	public static final class Writer implements AutoCloseable {
+
+		private final FileChannel channel;
+		private final int V;
+		private final long E;
+		private final boolean weighted;
+		private final long weightsAt;
+		private final CRC32C crc = new CRC32C();
+		private final ByteBuffer targetBuffer, weightBuffer;
+		private long added, weightsFlushed;
+		private boolean closed;
+
+		/**
+		 * @param offsets  V+1 non-decreasing edge offsets, offsets[0] == 0 and
+		 *                 offsets[V] == E
+		 * @param weighted whether a weight section is written
+		 */
+		public Writer(Path file, long[] offsets, boolean weighted) throws IOException {
+			if (offsets == null || offsets.length == 0 || offsets.length > Integer.MAX_VALUE - 8 || offsets[0] != 0)
+				throw new IllegalArgumentException("Offsets must start at 0");
+			for (int v = 1; v < offsets.length; v++)
+				if (offsets[v] < offsets[v - 1])
+					throw new IllegalArgumentException("Offsets decrease at vertex " + (v - 1));
+			V = offsets.length - 1;
+			E = offsets[V];
+			this.weighted = weighted;
+			weightsAt = HEADER_BYTES + 8L * (V + 1) + align8(4L * E);
+			targetBuffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			weightBuffer = weighted ? ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN) : null;
+
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				channel.position(HEADER_BYTES);
+				for (long offset : offsets) {
+					targetBuffer.putLong(offset);
+					drainIfFull(channel, targetBuffer, crc, 8);
+				}
+			} catch (IOException | RuntimeException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		public Writer addEdge(int target) throws IOException {
+			return addEdge(target, 1);
+		}
+
+		public Writer addEdge(int target, double weight) throws IOException {
+			if (closed)
+				throw new IllegalStateException("Writer is closed");
+			if (added == E)
+				throw new IllegalArgumentException("More edges than the offsets declare (" + E + ")");
+			if (target < 0 || target >= V)
+				throw new IllegalArgumentException("Target " + target + " is out of range");
+			targetBuffer.putInt(target);
+			drainIfFull(channel, targetBuffer, crc, 8);
+			if (weighted) {
+				weightBuffer.putDouble(weight);
+				if (!weightBuffer.hasRemaining())
+					flushWeights();
+			}
+			added++;
+			return this;
+		}
+
+		// Number of edges added so far
+		public long edgesAdded() {
+			return added;
+		}
+
+		private void flushWeights() throws IOException {
+			weightBuffer.flip();
+			while (weightBuffer.hasRemaining())
+				weightsFlushed += channel.write(weightBuffer, weightsAt + weightsFlushed);
+			weightBuffer.clear();
+		}
+
+		/**
+		 * Finishes the file: pads the targets, checksums the weights and
+		 * writes the header.
+		 *
+		 * @throws IllegalStateException if fewer edges were added than the
+		 *                               offsets declare; the file is left
+		 *                               without a valid header
+		 */
+		@Override
+		public void close() throws IOException {
+			if (closed)
+				return;
+			closed = true;
+			try (FileChannel channel = this.channel) {
+				if (added != E)
+					throw new IllegalStateException("Only " + added + " of " + E + " edges were added");
+				if ((E & 1) != 0)
+					targetBuffer.putInt(0);
+				drain(channel, targetBuffer, crc);
+				if (weighted) {
+					flushWeights();
+					ByteBuffer read = targetBuffer; // free again, reused for the read back
+					for (long position = weightsAt, end = weightsAt + 8L * E; position < end;) {
+						read.clear();
+						read.limit((int) Math.min(read.capacity(), end - position));
+						while (read.hasRemaining()) {
+							int n = channel.read(read, position);
+							if (n < 0)
+								throw new IOException("Weight section ended early");
+							position += n;
+						}
+						read.flip();
+						crc.update(read);
+					}
+				}
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+				header.putInt(MAGIC).putInt(VERSION).putInt(weighted ? FLAG_WEIGHTED : 0).putInt(0);
+				header.putLong(V).putLong(E).putLong(crc.getValue());
+				header.clear();
+				while (header.hasRemaining())
+					channel.write(header, header.position());
+			}
+		}
+	}
+
+	private static void drainIfFull(FileChannel channel, ByteBuffer buffer, CRC32C crc, int needed) throws IOException {
+		if (buffer.remaining() < needed)
+			drain(channel, buffer, crc);
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer buffer, CRC32C crc) throws IOException {
+		buffer.flip();
+		crc.update(buffer.duplicate());
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	public static void main(String[] args) throws IOException {
+		CSRGraph graph = new CSRGraph.Builder(4).addEdge(0, 1, 1).addEdge(0, 2, 4).addEdge(1, 2, 1).addEdge(2, 3, 5)
+				.build();
+		Path file = Files.createTempFile("graph", ".csr");
+		MappedCSRGraph.write(graph, file);
+
+		MappedCSRGraph mapped = MappedCSRGraph.open(file);
+		System.out.println("Checksum ok: " + mapped.verify() + ", " + mapped.fileBytes() + " bytes");
+		for (int v = 0; v < mapped.numVertices(); v++)
+			for (long e = mapped.begin(v); e < mapped.end(v); e++)
+				System.out.printf("%d -> %d (%.1f)\n", v, mapped.target(e), mapped.weight(e));
+		file.toFile().deleteOnExit(); // a mapped file cannot be deleted on every OS
+
+		// Output:
+		// Checksum ok: true, 152 bytes
+		// 0 -> 1 (1.0)
+		// 0 -> 2 (4.0)
+		// 1 -> 2 (1.0)
+		// 2 -> 3 (5.0)
+
+		// Stream a cycle 0 -> 1 -> ... -> n-1 -> 0 without building it on the heap,
+		// then search the mapping in place
+		int n = 1000;
+		long[] offsets = new long[n + 1];
+		for (int v = 0; v < n; v++)
+			offsets[v + 1] = v + 1;
+		Path cycleFile = Files.createTempFile("cycle", ".csr");
+		try (Writer writer = new Writer(cycleFile, offsets, false)) {
+			for (int v = 0; v < n; v++)
+				writer.addEdge((v + 1) % n);
+		}
+		MappedCSRGraph cycle = MappedCSRGraph.open(cycleFile);
+		cycleFile.toFile().deleteOnExit();
+		System.out.println("Hops 0 -> 999: " + new ParallelBFS(cycle).search(0)[n - 1]);
+		StronglyConnectedComponents scc = new StronglyConnectedComponents(cycle);
+		scc.solve();
+		System.out.println("Components: " + scc.sccCount());
+		System.out.println("Distance 0 -> 999: " + new DijkstraQueryEngine(cycle).shortestPath(0, n - 1));
+
+		// Output:
+		// Hops 0 -> 999: 999
+		// Components: 1
+		// Distance 0 -> 999: 999.0
+	}
+}
@@ -0,0 +1,486 @@
+/**
+ * Minimum cost maximum flow on an adjacency-list residual graph, with the
+ * same edge layout as MaxFlow: edge k added by the caller is the residual
+ * pair (2k, 2k+1), the reverse edge having the negated cost.
+ *
+ * Two algorithms are available:
+ * - Successive shortest paths (primal-dual): vertex potentials keep every
+ *   reduced cost c(u,v) + p(u) - p(v) non-negative, so each round is a heap
+ *   Dijkstra. The flow is then augmented along all shortest paths at once
+ *   with a blocking flow over the zero reduced cost edges. Negative costs
+ *   are allowed, the first potentials come from Bellman-Ford.
+ *   O(F (E log V)) for total flow F, far less when many shortest paths tie.
+ * - Cost scaling (Goldberg-Tarjan): a max flow from Dinic, then push-relabel
+ *   refinements that halve the allowed reduced cost violation epsilon until
+ *   the flow is optimal. O(V^2 E log(V C)), independent of the flow value,
+ *   better on instances with large capacities.
+ *
+ * Costs and capacities are integers, so the result is exact.
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+
+import Trees.IndexedDHeap;
+
+public class MinCostFlow {
+
+	// Epsilon is divided by this much per cost scaling refinement
+	private static final int ALPHA = 16;
+
+	private final int n;
+	private int edgeCount; // residual edges, twice the number of added edges
+
+	// Residual edge arrays, indexed by residual edge id
+	private int[] head, to;
+	private long[] residual, cost;
+	private long[] capacity; // capacity of the added edge k at index k
+
+	// Residual edge ids grouped by tail, rebuilt when edges were added
+	private int[] adjStart, adj;
+	private boolean adjValid;
+
+	private long flow, totalCost;
+
+	public MinCostFlow(int n) {
+		if (n <= 0)
+			throw new IllegalArgumentException("Network needs at least one vertex");
+		this.n = n;
+		head = new int[16];
+		to = new int[16];
+		residual = new long[16];
+		cost = new long[16];
+		capacity = new long[8];
+	}
+
+	public int numVertices() {
+		return n;
+	}
+
+	public int numEdges() {
+		return edgeCount / 2;
+	}
+
+	/**
+	 * Adds a directed edge carrying up to capacity units at cost per unit and
+	 * returns its index k.
+	 */
+	public int addEdge(int from, int to, long capacity, long cost) {
+		if (from < 0 || from >= n || to < 0 || to >= n)
+			throw new IllegalArgumentException("Edge " + from + "->" + to + " is out of range");
+		if (capacity < 0)
+			throw new IllegalArgumentException("Capacity cannot be negative");
+		if (edgeCount + 2 > head.length) {
+			int size = head.length * 2;
+			head = Arrays.copyOf(head, size);
+			this.to = Arrays.copyOf(this.to, size);
+			residual = Arrays.copyOf(residual, size);
+			this.cost = Arrays.copyOf(this.cost, size);
+			this.capacity = Arrays.copyOf(this.capacity, size / 2);
+		}
+		int k = edgeCount / 2;
+		this.capacity[k] = capacity;
+		head[edgeCount] = from;
+		this.to[edgeCount] = to;
+		this.cost[edgeCount] = cost;
+		residual[edgeCount++] = capacity;
+		head[edgeCount] = to;
+		this.to[edgeCount] = from;
+		this.cost[edgeCount] = -cost;
+		residual[edgeCount++] = 0;
+		adjValid = false;
+		return k;
+	}
+
+	public int edgeFrom(int k) {
+		return head[2 * k];
+	}
+
+	public int edgeTo(int k) {
+		return to[2 * k];
+	}
+
+	public long capacity(int k) {
+		return capacity[k];
+	}
+
+	public long cost(int k) {
+		return cost[2 * k];
+	}
+
+	// Flow on edge k after the last solve
+	public long flow(int k) {
+		return residual[2 * k + 1];
+	}
+
+	// Flow on every edge after the last solve, indexed by edge
+	public long[] flows() {
+		long[] flows = new long[numEdges()];
+		for (int k = 0; k < flows.length; k++)
+			flows[k] = residual[2 * k + 1];
+		return flows;
+	}
+
+	// Flow value of the last solve
+	public long flow() {
+		return flow;
+	}
+
+	// Total cost of the last solve
+	public long totalCost() {
+		return totalCost;
+	}
+
+	private void buildAdjacency() {
+		if (adjValid)
+			return;
+		adjStart = new int[n + 1];
+		for (int e = 0; e < edgeCount; e++)
+			adjStart[head[e] + 1]++;
+		for (int v = 0; v < n; v++)
+			adjStart[v + 1] += adjStart[v];
+		adj = new int[edgeCount];
+		int[] next = Arrays.copyOf(adjStart, n);
+		for (int e = 0; e < edgeCount; e++)
+			adj[next[head[e]]++] = e;
+		adjValid = true;
+	}
+
+	// Starts over from the zero flow
+	private void reset() {
+		buildAdjacency();
+		for (int k = 0; k < edgeCount / 2; k++) {
+			residual[2 * k] = capacity[k];
+			residual[2 * k + 1] = 0;
+		}
+	}
+
+	private void checkTerminals(int source, int sink) {
+		if (source < 0 || source >= n || sink < 0 || sink >= n || source == sink)
+			throw new IllegalArgumentException("Invalid source/sink " + source + "/" + sink);
+	}
+
+	private long computeCost() {
+		long total = 0;
+		for (int k = 0; k < edgeCount / 2; k++)
+			total += residual[2 * k + 1] * cost[2 * k];
+		return total;
+	}
+
+	/**
+	 * Cheapest maximum flow from source to sink by successive shortest paths.
+	 *
+	 * @return the flow value; totalCost() and flow(k) describe the flow
+	 * @throws IllegalArgumentException if a negative cost cycle is reachable
+	 *                                  from the source
+	 */
+	public long solve(int source, int sink) {
+		return solve(source, sink, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Cheapest flow of value min(maxFlow, limit) from source to sink by
+	 * successive shortest paths.
+	 */
+	public long solve(int source, int sink, long limit) {
+		checkTerminals(source, sink);
+		if (limit < 0)
+			throw new IllegalArgumentException("Flow limit cannot be negative");
+		reset();
+		long[] potential = initialPotentials(source);
+		long[] dist = new long[n];
+		int[] level = new int[n], cur = new int[n], queue = new int[n], path = new int[n];
+		boolean[] done = new boolean[n];
+		IndexedDHeap heap = new IndexedDHeap(Dijkstra.HEAP_DEGREE, n);
+		long total = 0;
+
+		while (total < limit && dijkstra(source, sink, potential, dist, done, heap)) {
+			// Shift potentials so every shortest path edge has reduced cost 0;
+			// vertices past the sink get the sink's distance
+			for (int v = 0; v < n; v++)
+				potential[v] += done[v] ? dist[v] : dist[sink];
+			total += blockingFlow(source, sink, limit - total, potential, level, cur, queue, path);
+		}
+		flow = total;
+		totalCost = computeCost();
+		return flow;
+	}
+
+	/**
+	 * Bellman-Ford (queue based) over the edges with capacity from the source,
+	 * only needed when some cost is negative.
+	 */
+	private long[] initialPotentials(int source) {
+		long[] potential = new long[n];
+		boolean negative = false;
+		for (int e = 0; e < edgeCount; e += 2)
+			negative |= cost[e] < 0 && residual[e] > 0;
+		if (!negative)
+			return potential;
+
+		final long INF = Long.MAX_VALUE;
+		Arrays.fill(potential, INF);
+		potential[source] = 0;
+		int[] queue = new int[n], edges = new int[n]; // edges on the best path
+		boolean[] inQueue = new boolean[n];
+		int qh = 0, size = 1;
+		queue[0] = source;
+		inQueue[source] = true;
+		while (size > 0) {
+			int u = queue[qh];
+			qh = (qh + 1) % n;
+			size--;
+			inQueue[u] = false;
+			for (int i = adjStart[u]; i < adjStart[u + 1]; i++) {
+				int e = adj[i], v = to[e];
+				if (residual[e] == 0 || potential[u] + cost[e] >= potential[v])
+					continue;
+				potential[v] = potential[u] + cost[e];
+				if ((edges[v] = edges[u] + 1) >= n)
+					throw new IllegalArgumentException("Network has a negative cost cycle");
+				if (!inQueue[v]) {
+					inQueue[v] = true;
+					queue[(qh + size++) % n] = v;
+				}
+			}
+		}
+		// Vertices the source cannot reach never will, any value works
+		for (int v = 0; v < n; v++)
+			if (potential[v] == INF)
+				potential[v] = 0;
+		return potential;
+	}
+
+	/**
+	 * Dijkstra on reduced costs, stopping once the sink is settled. done[v]
+	 * marks the settled vertices.
+	 *
+	 * @return true if the sink is reachable
+	 */
+	private boolean dijkstra(int source, int sink, long[] potential, long[] dist, boolean[] done, IndexedDHeap heap) {
+		Arrays.fill(dist, Long.MAX_VALUE);
+		Arrays.fill(done, false);
+		heap.clear();
+		dist[source] = 0;
+		heap.insert(source, 0);
+		while (!heap.isEmpty()) {
+			int u = heap.pollMinIndex();
+			done[u] = true;
+			if (u == sink)
+				return true;
+			for (int i = adjStart[u]; i < adjStart[u + 1]; i++) {
+				int e = adj[i], v = to[e];
+				if (residual[e] == 0 || done[v])
+					continue;
+				long d = dist[u] + cost[e] + potential[u] - potential[v];
+				if (d < dist[v]) {
+					dist[v] = d;
+					heap.insertOrDecrease(v, d);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Dinic style blocking flow restricted to edges of zero reduced cost, all
+	 * of which lie on shortest paths. Pushes at most limit units.
+	 */
+	private long blockingFlow(int source, int sink, long limit, long[] potential, int[] level, int[] cur,
+			int[] queue, int[] path) {
+		long pushed = 0;
+		while (pushed < limit) {
+			// BFS levels over the admissible edges, so zero cost cycles are
+			// never followed
+			Arrays.fill(level, -1);
+			level[source] = 0;
+			int qh = 0, qt = 0;
+			queue[qt++] = source;
+			while (qh < qt) {
+				int u = queue[qh++];
+				for (int i = adjStart[u]; i < adjStart[u + 1]; i++) {
+					int e = adj[i], v = to[e];
+					if (level[v] < 0 && residual[e] > 0 && cost[e] + potential[u] - potential[v] == 0) {
+						level[v] = level[u] + 1;
+						queue[qt++] = v;
+					}
+				}
+			}
+			if (level[sink] < 0)
+				break;
+
+			for (int v = 0; v < n; v++)
+				cur[v] = adjStart[v];
+			int depth = 0, v = source;
+			while (pushed < limit) {
+				if (v == sink) {
+					long push = limit - pushed;
+					for (int i = 0; i < depth; i++)
+						push = Math.min(push, residual[path[i]]);
+					int retreatTo = depth;
+					for (int i = depth - 1; i >= 0; i--) {
+						residual[path[i]] -= push;
+						residual[path[i] ^ 1] += push;
+						if (residual[path[i]] == 0)
+							retreatTo = i;
+					}
+					pushed += push;
+					if (retreatTo == depth)
+						break; // only the limit stopped this path
+					depth = retreatTo;
+					v = head[path[depth]];
+					continue;
+				}
+				boolean advanced = false;
+				for (; cur[v] < adjStart[v + 1]; cur[v]++) {
+					int e = adj[cur[v]], w = to[e];
+					if (residual[e] > 0 && level[w] == level[v] + 1
+							&& cost[e] + potential[v] - potential[w] == 0) {
+						path[depth++] = e;
+						v = w;
+						advanced = true;
+						break;
+					}
+				}
+				if (advanced)
+					continue;
+				level[v] = -1;
+				if (depth == 0)
+					break;
+				v = head[path[--depth]];
+				cur[v]++;
+			}
+		}
+		return pushed;
+	}
+
+	/**
+	 * Cheapest maximum flow by cost scaling. Dinic finds a maximum flow, then
+	 * refine() turns it into an epsilon-optimal one for ever smaller epsilon,
+	 * on costs multiplied by n + 1 so that epsilon = 1 means optimal. Every
+	 * refinement only moves flow around cycles, so the flow value stays.
+	 * Unlike solve(), negative cost cycles are allowed and get saturated.
+	 *
+	 * @return the flow value; totalCost() and flow(k) describe the flow
+	 */
+	public long solveCostScaling(int source, int sink) {
+		checkTerminals(source, sink);
+		buildAdjacency();
+		long maxCost = 0;
+		for (int e = 0; e < edgeCount; e += 2)
+			maxCost = Math.max(maxCost, Math.abs(cost[e]));
+		// Prices fall by at most about 3 n epsilon per refinement
+		if ((double) maxCost * (n + 1) * 3.0 * n * 2 >= Long.MAX_VALUE)
+			throw new IllegalArgumentException("Costs are too large for cost scaling");
+
+		MaxFlow maxFlow = new MaxFlow(n);
+		for (int k = 0; k < edgeCount / 2; k++)
+			maxFlow.addEdge(head[2 * k], to[2 * k], capacity[k]);
+		flow = maxFlow.dinic(source, sink);
+		for (int k = 0; k < edgeCount / 2; k++) {
+			residual[2 * k] = capacity[k] - maxFlow.flow(k);
+			residual[2 * k + 1] = maxFlow.flow(k);
+		}
+
+		long[] scaled = new long[edgeCount];
+		for (int e = 0; e < edgeCount; e++)
+			scaled[e] = cost[e] * (n + 1);
+		long[] price = new long[n], excess = new long[n];
+		int[] cur = new int[n], queue = new int[n];
+		boolean[] active = new boolean[n];
+		for (long epsilon = maxCost * (n + 1); epsilon > 1;) {
+			epsilon = Math.max(1, epsilon / ALPHA);
+			refine(epsilon, scaled, price, excess, cur, queue, active);
+		}
+		totalCost = computeCost();
+		return flow;
+	}
+
+	/**
+	 * Saturates every residual edge of negative reduced cost, which makes the
+	 * flow 0-optimal but leaves excesses, then pushes the excesses along
+	 * admissible edges (reduced cost below 0), relabelling a vertex when it
+	 * has none. Ends with a flow that is epsilon-optimal.
+	 */
+	private void refine(long epsilon, long[] scaled, long[] price, long[] excess, int[] cur, int[] queue,
+			boolean[] active) {
+		for (int e = 0; e < edgeCount; e++) {
+			long r = residual[e];
+			if (r > 0 && scaled[e] + price[head[e]] - price[to[e]] < 0) {
+				residual[e] = 0;
+				residual[e ^ 1] += r;
+				excess[head[e]] -= r;
+				excess[to[e]] += r;
+			}
+		}
+		int qh = 0, size = 0;
+		for (int v = 0; v < n; v++) {
+			cur[v] = adjStart[v];
+			if (excess[v] > 0) {
+				active[v] = true;
+				queue[size++] = v;
+			}
+		}
+		while (size > 0) {
+			int u = queue[qh];
+			qh = (qh + 1) % n;
+			size--;
+			active[u] = false;
+			while (excess[u] > 0) {
+				if (cur[u] == adjStart[u + 1]) {
+					// Relabel: lower u's price until its cheapest residual edge
+					// has reduced cost -epsilon
+					long best = Long.MIN_VALUE;
+					for (int i = adjStart[u]; i < adjStart[u + 1]; i++) {
+						int e = adj[i];
+						if (residual[e] > 0)
+							best = Math.max(best, price[to[e]] - scaled[e]);
+					}
+					price[u] = best - epsilon;
+					cur[u] = adjStart[u];
+					continue;
+				}
+				int e = adj[cur[u]], v = to[e];
+				if (residual[e] > 0 && scaled[e] + price[u] - price[v] < 0) {
+					long push = Math.min(excess[u], residual[e]);
+					residual[e] -= push;
+					residual[e ^ 1] += push;
+					excess[u] -= push;
+					excess[v] += push;
+					if (excess[v] > 0 && !active[v]) {
+						active[v] = true;
+						queue[(qh + size++) % n] = v;
+					}
+					if (residual[e] > 0)
+						continue;
+				}
+				cur[u]++;
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		// Two warehouses (1, 2) ship to two shops (3, 4); 0 is the source and
+		// 5 the sink
+		MinCostFlow network = new MinCostFlow(6);
+		network.addEdge(0, 1, 4, 0);
+		network.addEdge(0, 2, 3, 0);
+		int k13 = network.addEdge(1, 3, 3, 2);
+		int k14 = network.addEdge(1, 4, 2, 5);
+		int k23 = network.addEdge(2, 3, 2, 4);
+		int k24 = network.addEdge(2, 4, 3, 1);
+		network.addEdge(3, 5, 4, 0);
+		network.addEdge(4, 5, 3, 0);
+
+		System.out.println("Flow " + network.solve(0, 5) + " at cost " + network.totalCost());
+		System.out.println("1->3: " + network.flow(k13) + ", 1->4: " + network.flow(k14) + ", 2->3: "
+				+ network.flow(k23) + ", 2->4: " + network.flow(k24));
+		System.out.println("Cost scaling: flow " + network.solveCostScaling(0, 5) + " at cost " + network.totalCost());
+
+		// Output:
+		// Flow 7 at cost 17
+		// 1->3: 3, 1->4: 1, 2->3: 1, 2->4: 2
+		// Cost scaling: flow 7 at cost 17
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Minimum s-t cut found by a max-flow solver: the source side as a bit mask
+ * over the vertices and the indices of the edges crossing from the source
+ * side to the sink side. The source side is every vertex still reachable
+ * from the source in the final residual graph.
+ *
+ * Instances are immutable; every solve builds a new one.
+ *
+ * Memory : V/8 bytes for the mask + 4 bytes per cut edge
+ */
+
+package Graphs;
+
+public final class MinCut {
+
+	private final int n;
+	private final long[] sourceSide;
+	private final int[] cutEdges;
+	private final long capacity;
+
+	MinCut(int n, long[] sourceSide, int[] cutEdges, long capacity) {
+		this.n = n;
+		this.sourceSide = sourceSide;
+		this.cutEdges = cutEdges;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Cut of a capacity matrix (first n rows and columns) given the residual
+	 * reachability. Edge (i, j) has index i * n + j.
+	 */
+	static MinCut ofMatrix(int n, int[][] capacities, boolean[] reachable, long capacity) {
+		long[] mask = new long[(n + 63) >>> 6];
+		for (int v = 0; v < n; v++)
+			if (reachable[v])
+				mask[v >>> 6] |= 1L << v;
+		int size = 0;
+		for (int i = 0; i < n; i++)
+			if (reachable[i])
+				for (int j = 0; j < n; j++)
+					if (capacities[i][j] > 0 && !reachable[j])
+						size++;
+		int[] cut = new int[size];
+		size = 0;
+		for (int i = 0; i < n; i++)
+			if (reachable[i])
+				for (int j = 0; j < n; j++)
+					if (capacities[i][j] > 0 && !reachable[j])
+						cut[size++] = i * n + j;
+		return new MinCut(n, mask, cut, capacity);
+	}
+
+	public int numVertices() {
+		return n;
+	}
+
+	public boolean onSourceSide(int v) {
+		return (sourceSide[v >>> 6] & (1L << v)) != 0;
+	}
+
+	// Bit v of word v / 64 is set for source side vertices
+	public long[] sourceSideMask() {
+		return sourceSide.clone();
+	}
+
+	public int sourceSideSize() {
+		int size = 0;
+		for (long word : sourceSide)
+			size += Long.bitCount(word);
+		return size;
+	}
+
+	// Indices of the edges from the source side to the sink side, ascending
+	public int[] cutEdges() {
+		return cutEdges.clone();
+	}
+
+	public int cutSize() {
+		return cutEdges.length;
+	}
+
+	// Total capacity of the cut edges, equal to the max flow
+	public long capacity() {
+		return capacity;
+	}
+}
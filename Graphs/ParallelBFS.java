@@ -0,0 +1,387 @@
+/**
+ * Direction-optimizing breadth first search (Beamer et al.) for hop distances
+ * and BFS parents on large sparse graphs, every level run in parallel on a
+ * fork-join pool.
+ *
+ * Top-down steps scan the out-edges of the frontier and claim unvisited
+ * targets with a CAS on the visited bitset. Once the frontier's edges
+ * outnumber the unexplored edges / ALPHA, bottom-up steps take over: every
+ * unvisited vertex scans its in-edges until it finds a parent in the frontier
+ * bitset, which is far cheaper when most of the graph is in the frontier. The
+ * search returns to top-down when the frontier shrinks below V / BETA.
+ * Bottom-up tasks own whole words of the bitsets, so they need no atomics.
+ * Top-down frontiers are kept as a vertex queue rather than a bitset, so
+ * long thin graphs do not pay O(V/64) per level.
+ *
+ * An optional EdgeFilter hides edges, which lets the same engine search a
+ * residual graph (only edges with capacity left) in the flow code.
+ *
+ * Any GraphView works, including a MappedCSRGraph searched in place. The
+ * reverse graph for bottom-up steps is built on the heap when the edge count
+ * fits an int array; a graph too big for that can be given its reverse (say a
+ * mapped transpose), else the search stays top-down.
+ *
+ * One search at a time per instance; results stay readable until the next.
+ *
+ * Time Complexity : O(V+E) work
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ParallelBFS {
+
+	/**
+	 * Decides whether edge e (an edge index of the graph) may be used.
+	 * Called concurrently from several threads.
+	 */
+	public interface EdgeFilter {
+		boolean test(long e);
+	}
+
+	// Direction switch thresholds from the paper
+	static final int ALPHA = 14, BETA = 24;
+
+	// Frontier vertices (top-down) or bitset words (bottom-up) per leaf task
+	private static final int GRAIN = 1024, GRAIN_WORDS = 64;
+
+	private final GraphView graph;
+	private final GraphView reverseView; // optional, for unfiltered bottom-up steps
+	private final ForkJoinPool pool;
+	private final int V, words;
+
+	// Heap reverse graph for bottom-up steps, built on first use. reverseEdge
+	// maps every reverse edge to the forward edge it came from, for the filter.
+	private int[] reverseOffsets, reverseTargets, reverseEdge;
+
+	// State of the last search
+	private final int[] dist, parent, queue;
+	private final long[] parentEdge;
+	private final AtomicLongArray visited;
+	private long[] frontier, next;
+	private int reached;
+
+	public ParallelBFS(GraphView graph) {
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+	public ParallelBFS(GraphView graph, ForkJoinPool pool) {
+		this(graph, null, pool);
+	}
+
+	/**
+	 * @param reverse the transpose of graph, used by bottom-up steps of
+	 *                unfiltered searches instead of a heap copy; may be null
+	 */
+	public ParallelBFS(GraphView graph, GraphView reverse, ForkJoinPool pool) {
+		if (graph == null)
+			throw new IllegalArgumentException("Graph cannot be null");
+		if (reverse != null && (reverse.numVertices() != graph.numVertices() || reverse.edgeCount() != graph.edgeCount()))
+			throw new IllegalArgumentException("Reverse graph does not match the graph");
+		this.graph = graph;
+		this.reverseView = reverse;
+		this.pool = pool;
+		V = graph.numVertices();
+		words = (V + 63) >>> 6;
+		dist = new int[V];
+		parent = new int[V];
+		parentEdge = new long[V];
+		queue = new int[V];
+		visited = new AtomicLongArray(words);
+		frontier = new long[words];
+		next = new long[words];
+	}
+
+	public int[] search(int source) {
+		return search(source, null);
+	}
+
+	/**
+	 * Runs a BFS from source over the edges the filter accepts (all edges if
+	 * filter is null).
+	 *
+	 * @return hop distance of every vertex, -1 if unreachable. The array is
+	 *         reused by the next search.
+	 */
+	public int[] search(int source, EdgeFilter filter) {
+		if (source < 0 || source >= V)
+			throw new IllegalArgumentException("Source " + source + " is out of range");
+		Arrays.fill(dist, -1);
+		Arrays.fill(parent, -1);
+		Arrays.fill(parentEdge, -1);
+		for (int w = 0; w < words; w++)
+			visited.set(w, 0);
+
+		dist[source] = 0;
+		visited.set(source >>> 6, 1L << source);
+		queue[0] = source;
+		int start = 0, end = 1;
+		long frontierEdges = graph.degree(source), unexploredEdges = graph.edgeCount() - frontierEdges;
+		int frontierSize = 1, level = 0;
+		boolean bottomUp = false;
+		GraphView reverse = filter == null ? reverseView : null;
+		boolean canBottomUp = reverse != null || graph.edgeCount() <= Integer.MAX_VALUE - 8;
+		AtomicInteger tail = new AtomicInteger();
+		AtomicLong discoveredEdges = new AtomicLong();
+
+		while (frontierSize > 0) {
+			if (!bottomUp && canBottomUp && frontierEdges > unexploredEdges / ALPHA) {
+				bottomUp = true;
+				if (reverse == null)
+					buildReverse();
+				Arrays.fill(frontier, 0);
+				for (int i = start; i < end; i++)
+					frontier[queue[i] >>> 6] |= 1L << queue[i];
+			} else if (bottomUp && frontierSize < V / BETA) {
+				bottomUp = false;
+				start = end;
+				for (int w = 0; w < words; w++)
+					for (long bits = frontier[w]; bits != 0; bits &= bits - 1)
+						queue[end++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+			}
+
+			discoveredEdges.set(0);
+			if (bottomUp) {
+				BottomUpTask task = new BottomUpTask(filter, reverse, level, discoveredEdges, 0, words);
+				if (words <= GRAIN_WORDS)
+					task.compute();
+				else
+					pool.invoke(task);
+				long[] swap = frontier;
+				frontier = next;
+				next = swap;
+				frontierSize = 0;
+				for (long bits : frontier)
+					frontierSize += Long.bitCount(bits);
+				end = start; // queue is rebuilt when switching back
+			} else {
+				tail.set(end);
+				TopDownTask task = new TopDownTask(filter, level, tail, discoveredEdges, start, end);
+				if (end - start <= GRAIN)
+					task.compute();
+				else
+					pool.invoke(task);
+				start = end;
+				end = tail.get();
+				frontierSize = end - start;
+			}
+			frontierEdges = discoveredEdges.get();
+			unexploredEdges -= frontierEdges;
+			level++;
+		}
+		reached = 0;
+		for (int w = 0; w < words; w++)
+			reached += Long.bitCount(visited.get(w));
+		return dist;
+	}
+
+	public int distance(int v) {
+		return dist[v];
+	}
+
+	// BFS parent of v, -1 for the source and unreached vertices
+	public int parent(int v) {
+		return parent[v];
+	}
+
+	// Edge index used to reach v, -1 for the source and unreached vertices,
+	// and for vertices a bottom-up step found through a caller's reverse graph
+	public long parentEdge(int v) {
+		return parentEdge[v];
+	}
+
+	// Vertices reached by the last search, including the source
+	public int reached() {
+		return reached;
+	}
+
+	/**
+	 * Vertices of the BFS tree path from the source to target, null if target
+	 * was not reached.
+	 */
+	public int[] pathTo(int target) {
+		if (dist[target] < 0)
+			return null;
+		int[] path = new int[dist[target] + 1];
+		for (int i = path.length - 1, v = target; i >= 0; i--, v = parent[v])
+			path[i] = v;
+		return path;
+	}
+
+	private void buildReverse() {
+		if (reverseOffsets != null)
+			return;
+		int E = (int) graph.edgeCount();
+		reverseOffsets = new int[V + 1];
+		for (int e = 0; e < E; e++)
+			reverseOffsets[graph.target(e) + 1]++;
+		for (int v = 0; v < V; v++)
+			reverseOffsets[v + 1] += reverseOffsets[v];
+		reverseTargets = new int[E];
+		reverseEdge = new int[E];
+		int[] fill = Arrays.copyOf(reverseOffsets, V);
+		for (int u = 0; u < V; u++) {
+			for (int e = (int) graph.begin(u), end = (int) graph.end(u); e < end; e++) {
+				int r = fill[graph.target(e)]++;
+				reverseTargets[r] = u;
+				reverseEdge[r] = e;
+			}
+		}
+	}
+
+	// Sets v's bit if it was clear; true if this call set it
+	private boolean claim(int v) {
+		int w = v >>> 6;
+		long bit = 1L << v;
+		while (true) {
+			long old = visited.get(w);
+			if ((old & bit) != 0)
+				return false;
+			if (visited.compareAndSet(w, old, old | bit))
+				return true;
+		}
+	}
+
+	private final class TopDownTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final EdgeFilter filter;
+		private final int level, lo, hi;
+		private final AtomicInteger tail;
+		private final AtomicLong discoveredEdges;
+
+		TopDownTask(EdgeFilter filter, int level, AtomicInteger tail, AtomicLong discoveredEdges, int lo, int hi) {
+			this.filter = filter;
+			this.level = level;
+			this.tail = tail;
+			this.discoveredEdges = discoveredEdges;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new TopDownTask(filter, level, tail, discoveredEdges, lo, mid),
+						new TopDownTask(filter, level, tail, discoveredEdges, mid, hi));
+				return;
+			}
+			int[] local = new int[64];
+			int localSize = 0;
+			long edges = 0;
+			for (int i = lo; i < hi; i++) {
+				int v = queue[i];
+				for (long e = graph.begin(v), end = graph.end(v); e < end; e++) {
+					int u = graph.target(e);
+					if ((visited.get(u >>> 6) & (1L << u)) != 0 || (filter != null && !filter.test(e)) || !claim(u))
+						continue;
+					dist[u] = level + 1;
+					parent[u] = v;
+					parentEdge[u] = e;
+					edges += graph.degree(u);
+					if (localSize == local.length) {
+						System.arraycopy(local, 0, queue, tail.getAndAdd(localSize), localSize);
+						localSize = 0;
+					}
+					local[localSize++] = u;
+				}
+			}
+			if (localSize > 0)
+				System.arraycopy(local, 0, queue, tail.getAndAdd(localSize), localSize);
+			discoveredEdges.addAndGet(edges);
+		}
+	}
+
+	private final class BottomUpTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final EdgeFilter filter;
+		private final GraphView reverse; // null to use the heap reverse graph
+		private final int level, lo, hi;
+		private final AtomicLong discoveredEdges;
+
+		BottomUpTask(EdgeFilter filter, GraphView reverse, int level, AtomicLong discoveredEdges, int lo, int hi) {
+			this.filter = filter;
+			this.reverse = reverse;
+			this.level = level;
+			this.discoveredEdges = discoveredEdges;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN_WORDS) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BottomUpTask(filter, reverse, level, discoveredEdges, lo, mid),
+						new BottomUpTask(filter, reverse, level, discoveredEdges, mid, hi));
+				return;
+			}
+			long edges = 0;
+			for (int w = lo; w < hi; w++) {
+				long seen = visited.get(w), found = 0;
+				long unseen = ~seen;
+				if (w == words - 1 && (V & 63) != 0)
+					unseen &= (1L << V) - 1; // no vertices past V
+				for (; unseen != 0; unseen &= unseen - 1) {
+					int v = (w << 6) + Long.numberOfTrailingZeros(unseen);
+					int u = reverse == null ? heapParent(v) : viewParent(v);
+					if (u < 0)
+						continue;
+					dist[v] = level + 1;
+					parent[v] = u;
+					found |= 1L << v;
+					edges += graph.degree(v);
+				}
+				next[w] = found;
+				if (found != 0)
+					visited.set(w, seen | found); // this task owns word w
+			}
+			discoveredEdges.addAndGet(edges);
+		}
+
+		// First in-neighbour of v in the frontier over an allowed edge, -1 if none
+		private int heapParent(int v) {
+			for (int r = reverseOffsets[v]; r < reverseOffsets[v + 1]; r++) {
+				int u = reverseTargets[r];
+				if ((frontier[u >>> 6] & (1L << u)) == 0 || (filter != null && !filter.test(reverseEdge[r])))
+					continue;
+				parentEdge[v] = reverseEdge[r];
+				return u;
+			}
+			return -1;
+		}
+
+		// Same over the caller's reverse graph, whose edges have no forward index
+		private int viewParent(int v) {
+			for (long r = reverse.begin(v), end = reverse.end(v); r < end; r++) {
+				int u = reverse.target(r);
+				if ((frontier[u >>> 6] & (1L << u)) != 0)
+					return u;
+			}
+			return -1;
+		}
+	}
+
+	public static void main(String[] args) {
+		int n = 7;
+		CSRGraph graph = new CSRGraph.Builder(n).addUndirectedEdge(0, 1, 1).addUndirectedEdge(0, 2, 1)
+				.addUndirectedEdge(1, 3, 1).addUndirectedEdge(2, 3, 1).addUndirectedEdge(3, 4, 1)
+				.addUndirectedEdge(4, 5, 1).build();
+
+		ParallelBFS bfs = new ParallelBFS(graph);
+		System.out.println("Hops from 0: " + Arrays.toString(bfs.search(0)));
+		System.out.println("Path 0 -> 5: " + Arrays.toString(bfs.pathTo(5)) + ", reached " + bfs.reached());
+
+		// Output:
+		// Hops from 0: [0, 1, 1, 2, 3, 4, -1]
+		// Path 0 -> 5: [0, 1, 3, 4, 5], reached 6
+	}
+}
@@ -0,0 +1,365 @@
+/**
+ * Strongly connected components on many cores using trimming and
+ * forward-backward (FW-BW) reachability.
+ *
+ * For a set of vertices known to be closed under SCC membership, pick a pivot
+ * and compute the vertices it reaches (FW) and the vertices reaching it (BW)
+ * inside the set. The intersection of FW and BW is the pivot's SCC, and each of FW \ BW, BW \ FW
+ * and the rest is again closed under SCC membership, so the three are solved
+ * as independent fork-join tasks. Large frontiers are also expanded in
+ * parallel. Before every split, vertices with no in- or out-edges inside the
+ * set are trimmed off as singleton SCCs, which keeps DAG-like regions from
+ * producing long chains of tiny splits. Sets below a threshold, and whole
+ * graphs below it, are handed to Tarjan's algorithm (StronglyConnectedComponents).
+ *
+ * Labels: two vertices share a label if and only if they are in the same SCC,
+ * exactly as with StronglyConnectedComponents.getSccs(). The label values
+ * differ though: Tarjan labels by DFS visiting order, which only a sequential
+ * DFS can produce, so here every SCC is labelled with its smallest vertex id.
+ *
+ * Time Complexity : O((V+E) log V) expected work
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ParallelSCC {
+
+	// Vertex sets up to this size are solved with Tarjan's algorithm
+	static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+
+	// Frontier vertices handled by one fork-join leaf task during reachability
+	private static final int GRAIN = 1024;
+
+	private static final int DONE = -1;
+
+	private final CSRGraph graph, reverse;
+	private final ForkJoinPool pool;
+	private final int threshold;
+
+	private int[] component;
+	private int sccCount;
+
+	// Per-vertex state. A vertex belongs to exactly one live task at a time, so
+	// color, localId and the degree arrays need no synchronisation.
+	private int[] color, localId, inDegree, outDegree;
+	private AtomicIntegerArray forward, backward; // stamp of the last FW/BW reach
+	private final AtomicInteger stamps = new AtomicInteger(), count = new AtomicInteger();
+
+	public ParallelSCC(CSRGraph graph) {
+		this(graph, ForkJoinPool.commonPool(), SEQUENTIAL_THRESHOLD);
+	}
+
+	public ParallelSCC(CSRGraph graph, ForkJoinPool pool, int threshold) {
+		if (graph == null)
+			throw new IllegalArgumentException("Graph cannot be null");
+		this.graph = graph;
+		this.reverse = graph.transpose();
+		this.pool = pool;
+		this.threshold = Math.max(threshold, 1);
+	}
+
+	/**
+	 * Get the connected components of this graph. If two indexes have the same
+	 * value then they're in the same SCC.
+	 *
+	 * @return smallest vertex id of each vertex's SCC
+	 */
+	public int[] getSccs() {
+		solve();
+		return component;
+	}
+
+	public int sccCount() {
+		return sccCount;
+	}
+
+	public void solve() {
+		int V = graph.numVertices();
+		component = new int[V];
+		count.set(0);
+
+		int[] all = new int[V];
+		for (int v = 0; v < V; v++)
+			all[v] = v;
+		color = new int[V];
+		localId = new int[V];
+		if (V <= threshold) {
+			tarjan(all, V);
+		} else {
+			inDegree = new int[V];
+			outDegree = new int[V];
+			forward = new AtomicIntegerArray(V);
+			backward = new AtomicIntegerArray(V);
+			pool.invoke(new SplitTask(all, 0));
+		}
+		sccCount = count.get();
+	}
+
+	private final class SplitTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] set;
+		private final int setColor;
+
+		SplitTask(int[] set, int setColor) {
+			this.set = set;
+			this.setColor = setColor;
+		}
+
+		@Override
+		protected void compute() {
+			int size = trim(set, setColor);
+			if (size == 0)
+				return;
+			if (size <= threshold) {
+				tarjan(set, size);
+				return;
+			}
+
+			int pivot = set[new Random(set[0] * 31L + size).nextInt(size)];
+			int fw = stamps.incrementAndGet(), bw = stamps.incrementAndGet();
+			ForkJoinTask.invokeAll(new ReachTask(graph, forward, pivot, fw, setColor, size),
+					new ReachTask(reverse, backward, pivot, bw, setColor, size));
+
+			// Split into the pivot's SCC and three independent remainders
+			int[] sizes = new int[3];
+			for (int i = 0; i < size; i++) {
+				int v = set[i];
+				boolean f = forward.get(v) == fw, b = backward.get(v) == bw;
+				if (!f || !b)
+					sizes[f ? 0 : b ? 1 : 2]++;
+			}
+			int[][] parts = { new int[sizes[0]], new int[sizes[1]], new int[sizes[2]] };
+			int[] colors = { stamps.incrementAndGet(), stamps.incrementAndGet(), stamps.incrementAndGet() };
+			int label = Integer.MAX_VALUE;
+			int[] fill = new int[3];
+			for (int i = 0; i < size; i++) {
+				int v = set[i];
+				boolean f = forward.get(v) == fw, b = backward.get(v) == bw;
+				if (f && b) {
+					color[v] = DONE;
+					label = Math.min(label, v);
+				} else {
+					int p = f ? 0 : b ? 1 : 2;
+					color[v] = colors[p];
+					parts[p][fill[p]++] = v;
+				}
+			}
+			for (int i = 0; i < size; i++)
+				if (color[set[i]] == DONE)
+					component[set[i]] = label;
+			count.incrementAndGet();
+
+			int tasks = 0;
+			SplitTask[] next = new SplitTask[3];
+			for (int p = 0; p < 3; p++)
+				if (parts[p].length > 0)
+					next[tasks++] = new SplitTask(parts[p], colors[p]);
+			ForkJoinTask.invokeAll(Arrays.copyOf(next, tasks));
+		}
+	}
+
+	// Repeatedly removes vertices without in- or out-edges inside the set as
+	// singleton SCCs. Compacts the survivors to the front of set and returns
+	// their number.
+	private int trim(int[] set, int setColor) {
+		int[] offsets = graph.offsets, targets = graph.targets;
+		int[] rOffsets = reverse.offsets, rTargets = reverse.targets;
+
+		for (int v : set) {
+			int out = 0, in = 0;
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+				if (color[targets[e]] == setColor)
+					out++;
+			for (int e = rOffsets[v]; e < rOffsets[v + 1]; e++)
+				if (color[rTargets[e]] == setColor)
+					in++;
+			outDegree[v] = out;
+			inDegree[v] = in;
+		}
+
+		int[] queue = new int[set.length];
+		int qh = 0, qt = 0;
+		for (int v : set) {
+			if (outDegree[v] == 0 || inDegree[v] == 0) {
+				color[v] = DONE;
+				queue[qt++] = v;
+			}
+		}
+		while (qh < qt) {
+			int v = queue[qh++];
+			component[v] = v;
+			count.incrementAndGet();
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				int w = targets[e];
+				if (color[w] == setColor && --inDegree[w] == 0) {
+					color[w] = DONE;
+					queue[qt++] = w;
+				}
+			}
+			for (int e = rOffsets[v]; e < rOffsets[v + 1]; e++) {
+				int w = rTargets[e];
+				if (color[w] == setColor && --outDegree[w] == 0) {
+					color[w] = DONE;
+					queue[qt++] = w;
+				}
+			}
+		}
+
+		int size = 0;
+		for (int v : set)
+			if (color[v] == setColor)
+				set[size++] = v;
+		return size;
+	}
+
+	/**
+	 * Marks every vertex of color setColor reachable from the pivot with stamp,
+	 * one BFS level at a time. Large levels are expanded in parallel, claiming
+	 * vertices with a CAS on the mark.
+	 */
+	private final class ReachTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final CSRGraph g;
+		private final AtomicIntegerArray mark;
+		private final int pivot, stamp, setColor, setSize;
+
+		private int[] next;
+		private final AtomicInteger nextSize = new AtomicInteger();
+
+		ReachTask(CSRGraph g, AtomicIntegerArray mark, int pivot, int stamp, int setColor, int setSize) {
+			this.g = g;
+			this.mark = mark;
+			this.pivot = pivot;
+			this.stamp = stamp;
+			this.setColor = setColor;
+			this.setSize = setSize;
+		}
+
+		@Override
+		protected void compute() {
+			int[] frontier = new int[setSize];
+			next = new int[setSize];
+			mark.set(pivot, stamp);
+			frontier[0] = pivot;
+			int size = 1;
+			while (size > 0) {
+				nextSize.set(0);
+				if (size <= GRAIN)
+					expand(frontier, 0, size);
+				else
+					new LevelTask(frontier, 0, size).invoke();
+				int[] swap = frontier;
+				frontier = next;
+				next = swap;
+				size = nextSize.get();
+			}
+		}
+
+		private void expand(int[] frontier, int lo, int hi) {
+			int[] offsets = g.offsets, targets = g.targets;
+			int[] local = new int[64];
+			int localSize = 0;
+			for (int i = lo; i < hi; i++) {
+				int v = frontier[i];
+				for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int w = targets[e];
+					if (color[w] != setColor)
+						continue;
+					int m = mark.get(w);
+					if (m != stamp && mark.compareAndSet(w, m, stamp)) {
+						if (localSize == local.length) {
+							System.arraycopy(local, 0, next, nextSize.getAndAdd(localSize), localSize);
+							localSize = 0;
+						}
+						local[localSize++] = w;
+					}
+				}
+			}
+			if (localSize > 0)
+				System.arraycopy(local, 0, next, nextSize.getAndAdd(localSize), localSize);
+		}
+
+		private final class LevelTask extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+
+			private final int[] frontier;
+			private final int lo, hi;
+
+			LevelTask(int[] frontier, int lo, int hi) {
+				this.frontier = frontier;
+				this.lo = lo;
+				this.hi = hi;
+			}
+
+			@Override
+			protected void compute() {
+				if (hi - lo <= GRAIN) {
+					expand(frontier, lo, hi);
+					return;
+				}
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new LevelTask(frontier, lo, mid), new LevelTask(frontier, mid, hi));
+			}
+		}
+	}
+
+	// Tarjan's algorithm on the subgraph induced by set[0, size), whose vertices
+	// all share one color
+	private void tarjan(int[] set, int size) {
+		if (size == 0)
+			return;
+		int setColor = color[set[0]];
+		for (int i = 0; i < size; i++)
+			localId[set[i]] = i;
+		CSRGraph.Builder builder = new CSRGraph.Builder(size);
+		for (int i = 0; i < size; i++) {
+			int v = set[i];
+			for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+				int w = graph.targets[e];
+				if (color[w] == setColor)
+					builder.addEdge(i, localId[w]);
+			}
+		}
+		StronglyConnectedComponents scc = new StronglyConnectedComponents(builder.build());
+		int[] low = scc.getSccs();
+
+		// Tarjan labels are local DFS ids, relabel with the smallest member
+		int[] smallest = new int[size];
+		Arrays.fill(smallest, Integer.MAX_VALUE);
+		for (int i = 0; i < size; i++)
+			smallest[low[i]] = Math.min(smallest[low[i]], set[i]);
+		for (int i = 0; i < size; i++) {
+			component[set[i]] = smallest[low[i]];
+			color[set[i]] = DONE;
+		}
+		count.addAndGet(scc.sccCount());
+	}
+
+	public static void main(String[] args) {
+		int n = 8;
+		CSRGraph graph = new CSRGraph.Builder(n).addEdge(6, 0).addEdge(6, 2).addEdge(3, 4).addEdge(6, 4).addEdge(2, 0)
+				.addEdge(0, 1).addEdge(4, 5).addEdge(5, 6).addEdge(3, 7).addEdge(7, 5).addEdge(1, 2).addEdge(7, 3)
+				.addEdge(5, 0).build();
+
+		// Threshold 1 forces the FW-BW path even on this tiny graph
+		ParallelSCC solver = new ParallelSCC(graph, ForkJoinPool.commonPool(), 1);
+		int[] sccs = solver.getSccs();
+
+		System.out.printf("Number of Strongly Connected Components: %d\n", solver.sccCount());
+		System.out.println("Labels: " + Arrays.toString(sccs));
+
+		// Output:
+		// Number of Strongly Connected Components: 3
+		// Labels: [0, 0, 0, 3, 4, 4, 4, 3]
+	}
+}
@@ -13,21 +13,24 @@ import static java.lang.Math.min;
 public class StronglyConnectedComponents {
 
 	private int V;
-	private List<List<Integer>> graph;
+	private GraphView graph;
 
 	private int sccCount, id;
 	private boolean[] onStack;
 	private int[] ids, low;
-	private Deque<Integer> stack;
-
-	private static final int UNVISITED = -1;
+	private int[] stack; // Tarjan's stack of vertices not yet assigned to an SCC
+	private int stackSize;
 
 	public StronglyConnectedComponents(List<List<Integer>> graph) {
+		this(CSRGraph.fromAdjacencyList(graph));
+	}
+
+	// Works on a heap CSRGraph or a MappedCSRGraph alike
+	public StronglyConnectedComponents(GraphView graph) {
 		if (graph == null)
 			throw new IllegalArgumentException("Graph cannot be null");
-		V = graph.size();
+		V = graph.numVertices();
 		this.graph = graph;
-
 	}
 
 	/**
@@ -49,35 +52,39 @@ public class StronglyConnectedComponents {
 	}
 
 	/**
-	 * Do a DFS on all vertices
+	 * Do a DFS on all vertices. The DFS runs on an explicit stack (IterativeDFS),
+	 * so long paths cannot overflow the thread stack.
 	 */
 	public void solve() {
 		ids = new int[V];
 		low = new int[V];
 		onStack = new boolean[V];
-		stack = new ArrayDeque<>();
-		Arrays.fill(ids, UNVISITED);
+		stack = new int[V];
+		stackSize = sccCount = id = 0;
 
-		for (int i = 0; i < V; i++)
-			if (ids[i] == UNVISITED)
-				dfs(i);
+		new IterativeDFS(graph).runAll(new Tarjan());
 	}
 
 	/**
-	 * Main Circuit
-	 * 
-	 * @param Visiting vertex
+	 * Main Circuit, as DFS callbacks
 	 */
-	private void dfs(int at) {
-		stack.push(at);
-		onStack[at] = true;
-		ids[at] = low[at] = id++;
-
-		for (int to : graph.get(at)) {
-			if (ids[to] == UNVISITED) {
-				dfs(to);
-				low[at] = min(low[at], low[to]);
-			} else if (onStack[to]) {
+	private class Tarjan implements IterativeDFS.Visitor {
+
+		@Override
+		public void discover(int at, int parent) {
+			stack[stackSize++] = at;
+			onStack[at] = true;
+			ids[at] = low[at] = id++;
+		}
+
+		@Override
+		public void treeEdgeFinished(int at, int to) {
+			low[at] = min(low[at], low[to]);
+		}
+
+		@Override
+		public void nonTreeEdge(int at, int to, int parent) {
+			if (onStack[to]) {
 				low[at] = min(low[at], ids[to]); // deliberate to check with ids and not low- link as in original paper
 				// Note that v.lowlink := min(v.lowlink, w.index) is the correct way to update
 				// v.lowlink if w is on stack. Because w is on the stack already, (v, w) is a
@@ -87,16 +94,19 @@ public class StronglyConnectedComponents {
 			}
 		}
 
-		// On recursive callback, if we're at the root node (start of SCC)
+		// On callback, if we're at the root node (start of SCC)
 		// empty the seen stack until back to root.
-		if (ids[at] == low[at]) {
-			for (int node = stack.pop();; node = stack.pop()) {
-				onStack[node] = false;
-				low[node] = ids[at];
-				if (node == at)
-					break;
+		@Override
+		public void finish(int at, int parent) {
+			if (ids[at] == low[at]) {
+				for (int node = stack[--stackSize];; node = stack[--stackSize]) {
+					onStack[node] = false;
+					low[node] = ids[at];
+					if (node == at)
+						break;
+				}
+				sccCount++;
 			}
-			sccCount++;
 		}
 	}
 
@@ -1,10 +1,10 @@
 package Graphs;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /* Topological sorting for Directed Acyclic Graph (DAG) is a linear ordering of vertices 
  * such that for every directed edge u-v, vertex u comes before v in the ordering. 
@@ -12,36 +12,219 @@ import java.util.Map;
 
 public class TopologicalOrder {
 
-	Map<Integer, List<Integer>> adjList;
-	boolean visited[];
-	List<Integer> order;
+	// Frontier vertices handled by one fork-join leaf task in getLevels
+	private static final int GRAIN = 1024;
+
+	CSRGraph graph;
 	int V;
 
 	TopologicalOrder(int V, int[][] Edges) {
-		this.V = V;
-		adjList = new HashMap<>();
-		visited = new boolean[V];
-		order = new ArrayList<>();
-		while (--V >= 0)
-			adjList.put(V, new ArrayList<>());
-		for (int[] e : Edges)
-			adjList.get(e[0]).add(e[1]);
+		this(CSRGraph.fromEdges(V, Edges));
+	}
+
+	TopologicalOrder(CSRGraph graph) {
+		this.graph = graph;
+		this.V = graph.numVertices();
 	}
 
+	// Reverse DFS finishing order, computed on an explicit stack so that long
+	// dependency chains cannot overflow the thread stack
 	public int[] getTopologicalOrder() {
-		for (int i = 0; i < V; i++)
-			if (!visited[i])
-				DFS(i);
-		Collections.reverse(order);
-		return order.stream().mapToInt(Integer::intValue).toArray();
+		int[] order = new int[V];
+		new IterativeDFS(graph).runAll(new IterativeDFS.Visitor() {
+			int next = V;
+
+			@Override
+			public void finish(int n, int parent) {
+				order[--next] = n;
+			}
+		});
+		return order;
+	}
+
+	/**
+	 * The result of Kahn's algorithm: vertices grouped into levels (wavefronts)
+	 * where level 0 holds the vertices without incoming edges and level i+1 the
+	 * vertices whose last predecessor is in level i. Vertices of one level never
+	 * depend on each other, so they can be processed concurrently.
+	 *
+	 * Levels are stored CSR style: level i is order[levelStart[i], levelStart[i+1]),
+	 * sorted by vertex id.
+	 */
+	public static class Levels {
+
+		private final int[] order, levelStart, levelOf, cycle;
+
+		Levels(int[] order, int[] levelStart, int[] levelOf, int[] cycle) {
+			this.order = order;
+			this.levelStart = levelStart;
+			this.levelOf = levelOf;
+			this.cycle = cycle;
+		}
+
+		public boolean isDAG() {
+			return cycle == null;
+		}
+
+		/**
+		 * Returns the vertices of one directed cycle in edge order, or null for a
+		 * DAG. Only the vertices that do not depend on a cycle got a level.
+		 */
+		public int[] cycle() {
+			return cycle;
+		}
+
+		public int levelCount() {
+			return levelStart.length - 1;
+		}
+
+		public int[] level(int i) {
+			return Arrays.copyOfRange(order, levelStart[i], levelStart[i + 1]);
+		}
+
+		// Level of v, -1 if v is on or behind a cycle
+		public int levelOf(int v) {
+			return levelOf[v];
+		}
+
+		// All leveled vertices, level by level; a topological order for a DAG
+		public int[] order() {
+			return order.clone();
+		}
 	}
 
-	private void DFS(int n) {
-		visited[n] = true;
-		for (int neighbour : adjList.get(n))
-			if (!visited[neighbour])
-				DFS(neighbour);
-		order.add(n);
+	public Levels getLevels() {
+		return getLevels(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Kahn's algorithm on primitive arrays, one level at a time. Each level is
+	 * expanded in parallel when it is large: in-degrees are decremented
+	 * atomically and the thread that takes a vertex to zero appends it to the
+	 * next level.
+	 *
+	 * Time Complexity : O(V+E) work, plus sorting each level
+	 */
+	public Levels getLevels(ForkJoinPool pool) {
+		int[] offsets = graph.offsets, targets = graph.targets;
+		AtomicIntegerArray inDegree = new AtomicIntegerArray(V);
+		for (int e = 0; e < targets.length; e++)
+			inDegree.getAndIncrement(targets[e]);
+
+		int[] order = new int[V];
+		int[] levelOf = new int[V];
+		Arrays.fill(levelOf, -1);
+		int[] levelStart = new int[V + 1];
+		int levels = 0, size = 0;
+		for (int v = 0; v < V; v++)
+			if (inDegree.get(v) == 0)
+				order[size++] = v;
+
+		// order[start, end) is the current level, the next one is appended after it
+		int start = 0;
+		AtomicInteger end = new AtomicInteger(size);
+		while (start < end.get()) {
+			int levelEnd = end.get();
+			levelStart[levels] = start;
+			for (int i = start; i < levelEnd; i++)
+				levelOf[order[i]] = levels;
+			if (levelEnd - start <= GRAIN)
+				new LevelTask(offsets, targets, inDegree, order, end, start, levelEnd).compute();
+			else
+				pool.invoke(new LevelTask(offsets, targets, inDegree, order, end, start, levelEnd));
+			// Appends race each other, sorting makes the levels deterministic
+			if (end.get() - levelEnd > GRAIN)
+				Arrays.parallelSort(order, levelEnd, end.get());
+			else
+				Arrays.sort(order, levelEnd, end.get());
+			levels++;
+			start = levelEnd;
+		}
+		levelStart[levels] = start;
+		levelStart = Arrays.copyOf(levelStart, levels + 1);
+
+		int[] cycle = null;
+		if (start < V) {
+			order = Arrays.copyOf(order, start);
+			cycle = findCycle(levelOf);
+		}
+		return new Levels(order, levelStart, levelOf, cycle);
+	}
+
+	private static final class LevelTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] offsets, targets, order;
+		private final AtomicIntegerArray inDegree;
+		private final AtomicInteger end;
+		private final int lo, hi;
+
+		LevelTask(int[] offsets, int[] targets, AtomicIntegerArray inDegree, int[] order, AtomicInteger end, int lo,
+				int hi) {
+			this.offsets = offsets;
+			this.targets = targets;
+			this.inDegree = inDegree;
+			this.order = order;
+			this.end = end;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new LevelTask(offsets, targets, inDegree, order, end, lo, mid),
+						new LevelTask(offsets, targets, inDegree, order, end, mid, hi));
+				return;
+			}
+			// Ready vertices are buffered locally and appended in blocks
+			int[] local = new int[64];
+			int localSize = 0;
+			for (int i = lo; i < hi; i++) {
+				int v = order[i];
+				for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+					if (inDegree.decrementAndGet(targets[e]) == 0) {
+						if (localSize == local.length) {
+							System.arraycopy(local, 0, order, end.getAndAdd(localSize), localSize);
+							localSize = 0;
+						}
+						local[localSize++] = targets[e];
+					}
+				}
+			}
+			if (localSize > 0)
+				System.arraycopy(local, 0, order, end.getAndAdd(localSize), localSize);
+		}
+	}
+
+	/**
+	 * Every vertex Kahn's algorithm could not level has a predecessor that was
+	 * not leveled either, so walking such predecessors backwards must revisit a
+	 * vertex. The walk from that vertex on is a cycle.
+	 */
+	private int[] findCycle(int[] levelOf) {
+		CSRGraph reverse = graph.transpose();
+		int[] seenAt = new int[V];
+		Arrays.fill(seenAt, -1);
+		int[] walk = new int[V + 1];
+		int steps = 0;
+		int v = 0;
+		while (levelOf[v] >= 0)
+			v++;
+		while (seenAt[v] < 0) {
+			seenAt[v] = steps;
+			walk[steps++] = v;
+			int e = reverse.offsets[v];
+			while (levelOf[reverse.targets[e]] >= 0)
+				e++;
+			v = reverse.targets[e];
+		}
+		// walk[seenAt[v], steps) follows edges backwards, reverse it
+		int[] cycle = new int[steps - seenAt[v]];
+		for (int i = 0; i < cycle.length; i++)
+			cycle[i] = walk[steps - 1 - i];
+		return cycle;
 	}
 
 	public static void main(String[] args) {
@@ -51,6 +234,22 @@ public class TopologicalOrder {
 		for (int c : result) {
 			System.out.print(c + " ");
 		}
+		System.out.println();
+
+		Levels levels = new TopologicalOrder(6, edges).getLevels();
+		for (int i = 0; i < levels.levelCount(); i++)
+			System.out.println("Level " + i + ": " + Arrays.toString(levels.level(i)));
+
+		int cyclic[][] = { { 0, 1 }, { 1, 2 }, { 2, 3 }, { 3, 1 }, { 3, 4 } };
+		System.out.println("Cycle: " + Arrays.toString(new TopologicalOrder(5, cyclic).getLevels().cycle()));
+
+		// Output:
+		// 5 4 2 3 1 0
+		// Level 0: [4, 5]
+		// Level 1: [0, 2]
+		// Level 2: [3]
+		// Level 3: [1]
+		// Cycle: [2, 3, 1]
 	}
 
 }
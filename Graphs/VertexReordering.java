@@ -0,0 +1,242 @@
+/**
+ * Relabels the vertices of a graph so that vertices that are used together
+ * get nearby ids, which keeps per-vertex arrays such as dist, low and ids in
+ * cache while an algorithm walks the graph.
+ *
+ * Strategies:
+ * - RCM: reverse Cuthill-McKee. BFS from a low-degree vertex of every
+ *   component, visiting neighbours in increasing degree, then reversed. Keeps
+ *   the ids of adjacent vertices close (small bandwidth).
+ * - BFS: plain breadth first order, neighbours in edge order.
+ * - DEGREE: highest degree first, so the hubs most edges point at share a few
+ *   cache lines.
+ * Edges are treated as undirected for the orderings, the relabelled graph
+ * keeps their direction and order.
+ *
+ * The permutation and its inverse are kept, so results computed on graph()
+ * can be translated back to the original ids, e.g.
+ *   int[] sccs = reordering.toOriginal(new StronglyConnectedComponents(reordering.graph()).getSccs());
+ *   int d = new Dijkstra(reordering.graph()).getShortestPath(reordering.newId(s), reordering.newId(t));
+ *
+ * Time Complexity : O(V+E) for BFS and DEGREE, O(V+E log(max degree)) for RCM
+ */
+
+package Graphs;
+
+import java.util.Arrays;
+
+public class VertexReordering {
+
+	public enum Strategy {
+		RCM, BFS, DEGREE
+	}
+
+	private final int[] newId, originalId;
+	private final CSRGraph graph;
+
+	public VertexReordering(CSRGraph graph, Strategy strategy) {
+		if (graph == null || strategy == null)
+			throw new IllegalArgumentException("Graph and strategy cannot be null");
+		switch (strategy) {
+		case RCM:
+			originalId = bfsOrder(graph, true);
+			reverse(originalId);
+			break;
+		case BFS:
+			originalId = bfsOrder(graph, false);
+			break;
+		default:
+			originalId = degreeOrder(graph);
+		}
+		int V = graph.numVertices();
+		newId = new int[V];
+		for (int i = 0; i < V; i++)
+			newId[originalId[i]] = i;
+		this.graph = relabel(graph);
+	}
+
+	// The relabelled graph, vertex newId(v) stands for original vertex v
+	public CSRGraph graph() {
+		return graph;
+	}
+
+	public int newId(int original) {
+		return newId[original];
+	}
+
+	public int originalId(int relabelled) {
+		return originalId[relabelled];
+	}
+
+	// newId of every original vertex
+	public int[] permutation() {
+		return newId.clone();
+	}
+
+	// originalId of every relabelled vertex
+	public int[] inverse() {
+		return originalId.clone();
+	}
+
+	/**
+	 * Translates a per-vertex result of graph() (indexed by new id) into one
+	 * indexed by original id.
+	 */
+	public int[] toOriginal(int[] byNewId) {
+		int[] byOriginal = new int[byNewId.length];
+		for (int v = 0; v < byNewId.length; v++)
+			byOriginal[originalId[v]] = byNewId[v];
+		return byOriginal;
+	}
+
+	public double[] toOriginal(double[] byNewId) {
+		double[] byOriginal = new double[byNewId.length];
+		for (int v = 0; v < byNewId.length; v++)
+			byOriginal[originalId[v]] = byNewId[v];
+		return byOriginal;
+	}
+
+	/**
+	 * Translates a list of vertices of graph(), such as a path or an order, to
+	 * original ids. Negative entries (e.g. -1 for "no parent") are kept.
+	 */
+	public int[] verticesToOriginal(int[] vertices) {
+		int[] original = new int[vertices.length];
+		for (int i = 0; i < vertices.length; i++)
+			original[i] = vertices[i] < 0 ? vertices[i] : originalId[vertices[i]];
+		return original;
+	}
+
+	private CSRGraph relabel(CSRGraph g) {
+		int V = g.numVertices();
+		int[] offsets = new int[V + 1];
+		for (int u = 0; u < V; u++)
+			offsets[u + 1] = offsets[u] + g.degree(originalId[u]);
+		int[] targets = new int[g.numEdges()];
+		double[] weights = g.weights == null ? null : new double[g.numEdges()];
+		for (int u = 0; u < V; u++) {
+			int old = originalId[u];
+			for (int e = g.offsets[old], to = offsets[u]; e < g.offsets[old + 1]; e++, to++) {
+				targets[to] = newId[g.targets[e]];
+				if (weights != null)
+					weights[to] = g.weights[e];
+			}
+		}
+		return new CSRGraph(V, offsets, targets, weights);
+	}
+
+	/**
+	 * BFS over the graph seen as undirected. Every component starts at its
+	 * lowest-degree unvisited vertex; with byDegree the neighbours of a vertex
+	 * are queued in increasing degree (Cuthill-McKee), otherwise in edge order.
+	 */
+	private static int[] bfsOrder(CSRGraph g, boolean byDegree) {
+		int V = g.numVertices();
+		CSRGraph reverse = g.transpose();
+		int[] degree = new int[V];
+		for (int v = 0; v < V; v++)
+			degree[v] = g.degree(v) + reverse.degree(v);
+
+		// Component starts are tried in increasing degree, ties by id
+		int[] starts = byDegree ? sortByDegree(degree, false) : null;
+		int[] order = new int[V];
+		boolean[] visited = new boolean[V];
+		long[] neighbours = new long[16];
+		int head = 0, tail = 0;
+		for (int i = 0; i < V; i++) {
+			int start = byDegree ? starts[i] : i;
+			if (visited[start])
+				continue;
+			visited[start] = true;
+			order[tail++] = start;
+			while (head < tail) {
+				int v = order[head++];
+				int count = 0;
+				for (int pass = 0; pass < 2; pass++) {
+					CSRGraph side = pass == 0 ? g : reverse;
+					for (int e = side.offsets[v]; e < side.offsets[v + 1]; e++) {
+						int w = side.targets[e];
+						if (visited[w])
+							continue;
+						visited[w] = true;
+						if (!byDegree) {
+							order[tail++] = w;
+							continue;
+						}
+						if (count == neighbours.length)
+							neighbours = Arrays.copyOf(neighbours, count * 2);
+						neighbours[count++] = ((long) degree[w] << 32) | w;
+					}
+				}
+				if (byDegree) {
+					Arrays.sort(neighbours, 0, count);
+					for (int k = 0; k < count; k++)
+						order[tail++] = (int) neighbours[k];
+				}
+			}
+		}
+		return order;
+	}
+
+	private static int[] degreeOrder(CSRGraph g) {
+		int V = g.numVertices();
+		CSRGraph reverse = g.transpose();
+		int[] degree = new int[V];
+		for (int v = 0; v < V; v++)
+			degree[v] = g.degree(v) + reverse.degree(v);
+		return sortByDegree(degree, true);
+	}
+
+	// Vertices sorted by degree, ties broken by id, with a counting sort
+	private static int[] sortByDegree(int[] degree, boolean descending) {
+		int V = degree.length, max = 0;
+		for (int d : degree)
+			max = Math.max(max, d);
+		int[] start = new int[max + 2];
+		for (int d : degree)
+			start[(descending ? max - d : d) + 1]++;
+		for (int d = 0; d <= max; d++)
+			start[d + 1] += start[d];
+		int[] sorted = new int[V];
+		for (int v = 0; v < V; v++)
+			sorted[start[descending ? max - degree[v] : degree[v]]++] = v;
+		return sorted;
+	}
+
+	private static void reverse(int[] a) {
+		for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+			int t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+
+	// Largest |u - v| over all edges u -> v, small when neighbours have close ids
+	public static int bandwidth(CSRGraph g) {
+		int bandwidth = 0;
+		for (int u = 0; u < g.numVertices(); u++)
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++)
+				bandwidth = Math.max(bandwidth, Math.abs(u - g.targets[e]));
+		return bandwidth;
+	}
+
+	public static void main(String[] args) {
+		// A path 0 - 1 - ... - 9 whose vertex ids got shuffled
+		int[] shuffled = { 7, 2, 9, 0, 5, 3, 8, 1, 6, 4 };
+		CSRGraph.Builder builder = new CSRGraph.Builder(10);
+		for (int i = 0; i + 1 < shuffled.length; i++)
+			builder.addUndirectedEdge(shuffled[i], shuffled[i + 1], i + 1);
+		CSRGraph graph = builder.build();
+
+		VertexReordering rcm = new VertexReordering(graph, Strategy.RCM);
+		System.out.println("Bandwidth before: " + bandwidth(graph) + ", after RCM: " + bandwidth(rcm.graph()));
+
+		DijkstraQueryEngine engine = new DijkstraQueryEngine(rcm.graph());
+		double[] dist = rcm.toOriginal(engine.distancesFrom(rcm.newId(7)));
+		System.out.println("Distances from 7: " + Arrays.toString(dist));
+
+		// Output:
+		// Bandwidth before: 9, after RCM: 1
+		// Distances from 7: [6.0, 28.0, 1.0, 15.0, 45.0, 10.0, 36.0, 0.0, 21.0, 3.0]
+	}
+}
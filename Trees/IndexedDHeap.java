@@ -0,0 +1,176 @@
+package Trees;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An indexed d-ary min heap keyed by doubles. Every element is an int key
+ * index (ki) in [0, capacity), e.g. a vertex id, and a position map allows
+ * the key of an element already in the heap to be decreased in place.
+ *
+ * All storage is allocated up front, so no operation allocates.
+ *
+ * TC : insert, decreaseKey - O(log_d(N)) ; poll - O(d * log_d(N)) ; contains,
+ * peek - O(1)
+ */
+
+public class IndexedDHeap {
+
+	private final int D;
+	private int size;
+
+	// heap[i] : ki stored at heap position i
+	// pos[ki] : heap position of ki, -1 if ki is not in the heap
+	// keys[ki] : key of ki
+	private final int[] heap, pos;
+	private final double[] keys;
+
+	public IndexedDHeap(int degree, int capacity) {
+		if (degree < 2)
+			throw new IllegalArgumentException("Degree must be at least 2");
+		D = degree;
+		heap = new int[capacity];
+		pos = new int[capacity];
+		keys = new double[capacity];
+		Arrays.fill(pos, -1);
+	}
+
+	public int capacity() {
+		return pos.length;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int ki) {
+		return pos[ki] != -1;
+	}
+
+	public double keyOf(int ki) {
+		if (!contains(ki))
+			throw new NoSuchElementException("Index " + ki + " is not in the heap");
+		return keys[ki];
+	}
+
+	// Removes every remaining element, O(size) and not O(capacity)
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			pos[heap[i]] = -1;
+		size = 0;
+	}
+
+	public void insert(int ki, double key) {
+		if (contains(ki))
+			throw new IllegalArgumentException("Index " + ki + " is already in the heap");
+		keys[ki] = key;
+		heap[size] = ki;
+		pos[ki] = size;
+		swim(size++);
+	}
+
+	public void decreaseKey(int ki, double key) {
+		if (key < keyOf(ki)) {
+			keys[ki] = key;
+			swim(pos[ki]);
+		}
+	}
+
+	// Inserts ki or lowers its key, whichever applies. Returns true if the heap
+	// changed.
+	public boolean insertOrDecrease(int ki, double key) {
+		if (!contains(ki)) {
+			insert(ki, key);
+			return true;
+		}
+		if (key < keys[ki]) {
+			keys[ki] = key;
+			swim(pos[ki]);
+			return true;
+		}
+		return false;
+	}
+
+	public int peekMinIndex() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return heap[0];
+	}
+
+	public double peekMinKey() {
+		return keys[peekMinIndex()];
+	}
+
+	// Removes and returns the ki with the smallest key
+	public int pollMinIndex() {
+		int min = peekMinIndex();
+		pos[min] = -1;
+		if (--size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			pos[last] = 0;
+			sink(0);
+		}
+		return min;
+	}
+
+	// Moves the element at position i up, shifting parents down into the hole
+	private void swim(int i) {
+		int ki = heap[i];
+		double key = keys[ki];
+		while (i > 0) {
+			int parent = (i - 1) / D;
+			int pk = heap[parent];
+			if (keys[pk] <= key)
+				break;
+			heap[i] = pk;
+			pos[pk] = i;
+			i = parent;
+		}
+		heap[i] = ki;
+		pos[ki] = i;
+	}
+
+	// Moves the element at position i down, shifting the smallest child up
+	private void sink(int i) {
+		int ki = heap[i];
+		double key = keys[ki];
+		while (true) {
+			int first = i * D + 1;
+			if (first >= size)
+				break;
+			int last = Math.min(first + D, size);
+			int smallest = first;
+			for (int c = first + 1; c < last; c++)
+				if (keys[heap[c]] < keys[heap[smallest]])
+					smallest = c;
+			int sk = heap[smallest];
+			if (key <= keys[sk])
+				break;
+			heap[i] = sk;
+			pos[sk] = i;
+			i = smallest;
+		}
+		heap[i] = ki;
+		pos[ki] = i;
+	}
+
+	public static void main(String[] args) {
+		IndexedDHeap heap = new IndexedDHeap(4, 6);
+		double[] keys = { 5, 4, 3, 2, 1, 0 };
+		for (int i = 0; i < keys.length; i++)
+			heap.insert(i, keys[i]);
+		heap.decreaseKey(0, -1);
+
+		while (!heap.isEmpty())
+			System.out.print(heap.pollMinIndex() + " ");
+
+		// Output:
+		// 0 5 4 3 2 1
+	}
+
+}